@@ -159,15 +159,25 @@ public class MyMinecraft {
         float[] cameraPos = player.getCameraPosition();
         camera.setPosition(cameraPos[0], cameraPos[1], cameraPos[2]);
         
-        // 更新世界状态（区块加载/卸载）
-        world.updateWorld(player.getX(), player.getZ());
+        // 更新世界状态（区块加载，优先加载视线方向和移动方向上的区块）
+        float[] front = camera.getFrontVector();
+        world.updateWorld(player.getX(), player.getZ(), front[0], front[2],
+                          player.getVelocityX(), player.getVelocityZ());
+        
+        // 后台加载的区块加入世界后重建网格
+        if (world.consumeVisibleFacesChanged()) {
+            renderManager.rebuildMesh(world);
+        }
+        
+        // 遮挡体在后台线程光栅化，与方块交互和网格上传同时进行
+        renderManager.startOcclusionRaster();
         
         // 更新方块交互
         if (inputHandler != null) {
             inputHandler.updateBlockInteraction(currentFrameTime, deltaTime);
         }
         
-        // 网格重建现在在onMeshRebuildNeeded()中立即执行，无需延迟处理
+        // 方块修改后的网格重建在onMeshRebuildNeeded()中提交，由后台线程构建
         
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
         
@@ -186,20 +196,18 @@ public class MyMinecraft {
         if (renderManager != null) {
             renderManager.cleanup();
         }
+        if (world != null) {
+            world.shutdown();
+        }
     }
     
     /**
-     * 通知需要重新构建网格（立即重建并渲染）
+     * 通知需要重新构建网格（立即提交后台构建，完成后在之后的帧中显示）
      */
     public void onMeshRebuildNeeded() {
-        // 立即重建网格，避免延迟一帧
         if (renderManager != null && world != null) {
+            world.consumeVisibleFacesChanged();
             renderManager.rebuildMesh(world);
-            
-            // 立即执行一次渲染更新，确保新方块立即显示
-            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
-            renderManager.render(camera, windowManager.getCurrentWidth(), windowManager.getCurrentHeight());
-            glfwSwapBuffers(windowManager.getWindow());
         }
     }
     
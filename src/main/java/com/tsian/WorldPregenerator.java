@@ -0,0 +1,133 @@
+package com.tsian;
+
+import com.tsian.config.GameConfig;
+import com.tsian.world.Chunk;
+import com.tsian.world.ChunkStorage;
+import com.tsian.world.TerrainGenerator;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 世界预生成工具 - 无窗口、无OpenGL的命令行入口
+ *
+ * 用法: WorldPregenerator <seed> <radius> [outputDir] [centerChunkX centerChunkZ]
+ *
+ * 使用所有CPU核心并行生成半径内的所有区块并写入存档目录，
+ * 游戏启动时会优先读取这些区块（只读取种子与游戏世界相同的区块），同时输出的区块/秒也可以作为地形生成的性能基准。
+ * 种子同时写入存档目录，配置未指定种子时游戏会使用同一种子，直接读取预生成的区块。
+ */
+public class WorldPregenerator {
+    
+    private static final long PROGRESS_INTERVAL_MS = 1000; // 进度输出间隔
+    
+    private final TerrainGenerator terrainGenerator;
+    private final ChunkStorage chunkStorage;
+    private final int threads;
+    
+    public WorldPregenerator(long seed, String outputDir, GameConfig config, int threads) {
+        this.terrainGenerator = new TerrainGenerator(seed, config);
+        this.chunkStorage = new ChunkStorage(outputDir, seed);
+        this.threads = threads;
+    }
+    
+    /**
+     * 生成并保存以(centerX, centerZ)为中心、半径为radius的所有区块
+     * @return 成功写入的区块数
+     */
+    public int pregenerate(int centerX, int centerZ, int radius) throws InterruptedException {
+        int side = radius * 2 + 1;
+        int total = side * side;
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong blocks = new AtomicLong();
+        
+        System.out.println("Pregenerating " + total + " chunks around (" + centerX + ", " + centerZ + ") with radius " +
+                          radius + " on " + threads + " threads into " + chunkStorage.getDirectory().getAbsolutePath());
+        
+        try {
+            chunkStorage.saveSeed();
+        } catch (IOException e) {
+            System.err.println("Failed to save world seed: " + e.getMessage());
+        }
+        
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                final int chunkX = x;
+                final int chunkZ = z;
+                executor.execute(() -> {
+                    try {
+                        Chunk chunk = new Chunk(chunkX, chunkZ);
+                        terrainGenerator.generate(chunk);
+                        chunkStorage.save(chunk);
+                        blocks.addAndGet(chunk.getBlocks().size());
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        System.err.println("Failed to pregenerate chunk (" + chunkX + ", " + chunkZ + "): " + e.getMessage());
+                    } finally {
+                        completed.incrementAndGet();
+                    }
+                });
+            }
+        }
+        executor.shutdown();
+        
+        // 定期输出进度
+        while (!executor.awaitTermination(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            printProgress(completed.get(), total, startTime);
+        }
+        
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        int written = total - failed.get();
+        System.out.printf("Pregeneration finished: %d/%d chunks, %d blocks in %.2f s (%.1f chunks/s)%n",
+                          written, total, blocks.get(), seconds, written / Math.max(seconds, 1e-9));
+        return written;
+    }
+    
+    /**
+     * 输出当前进度
+     */
+    private void printProgress(int done, int total, long startTime) {
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        System.out.printf("Progress: %d/%d (%.1f%%), %.1f chunks/s%n",
+                          done, total, done * 100.0 / total, done / Math.max(seconds, 1e-9));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        // 中心坐标必须同时给出X和Z，半径不能为负
+        if (args.length < 2 || args.length == 4 || args.length > 5 || Integer.parseInt(args[1]) < 0) {
+            System.err.println("Usage: WorldPregenerator <seed> <radius> [outputDir] [centerChunkX centerChunkZ]");
+            System.exit(1);
+        }
+        
+        GameConfig config;
+        try {
+            config = GameConfig.loadDefault();
+        } catch (Exception e) {
+            System.err.println("Failed to load config, using defaults: " + e.getMessage());
+            config = new GameConfig();
+        }
+        
+        long seed = Long.parseLong(args[0]);
+        int radius = Integer.parseInt(args[1]);
+        String outputDir = args.length > 2 ? args[2] : config.world.saveDirectory;
+        
+        // 默认以空岛中心区块为中心
+        int centerChunk = (config.world.islandMinChunk + config.world.islandMaxChunk) / 2;
+        int centerX = args.length == 5 ? Integer.parseInt(args[3]) : centerChunk;
+        int centerZ = args.length == 5 ? Integer.parseInt(args[4]) : centerChunk;
+        
+        int threads = Runtime.getRuntime().availableProcessors();
+        WorldPregenerator pregenerator = new WorldPregenerator(seed, outputDir, config, threads);
+        int written = pregenerator.pregenerate(centerX, centerZ, radius);
+        if (written < (radius * 2 + 1) * (radius * 2 + 1)) {
+            System.exit(2);
+        }
+    }
+}
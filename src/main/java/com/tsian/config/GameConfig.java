@@ -111,6 +111,21 @@ public class GameConfig {
         
         @SerializedName("chunk_size")
         public int chunkSize = 16; // 区块大小
+        
+        @SerializedName("seed")
+        public long seed = 0; // 世界种子（0表示每次启动随机）
+        
+        @SerializedName("save_directory")
+        public String saveDirectory = "world"; // 存档目录（预生成的区块从这里读取，种子不同的区块被忽略）
+        
+        @SerializedName("view_distance")
+        public int viewDistance = 8; // 区块加载距离（区块）
+        
+        @SerializedName("chunk_worker_threads")
+        public int chunkWorkerThreads = 0; // 区块后台线程数（0表示按CPU核心数自动选择）
+        
+        @SerializedName("prefetch_seconds")
+        public float prefetchSeconds = 3.0f; // 按当前速度预读前方区块的时间（秒）
     }
     
     /**
@@ -125,8 +140,8 @@ public class GameConfig {
      * 渲染配置
      */
     public static class RenderConfig {
-        @SerializedName("floats_per_vertex")
-        public int floatsPerVertex = 12; // 每个顶点的浮点数数量
+        @SerializedName("mesh_worker_threads")
+        public int meshWorkerThreads = 0; // 网格构建后台线程数（0表示按CPU核心数自动选择）
         
         @SerializedName("fov")
         public float fov = 45.0f; // 视野角度
@@ -145,6 +160,21 @@ public class GameConfig {
         
         @SerializedName("selected_block_brightness")
         public float selectedBlockBrightness = 1.3f; // 选中方块亮度倍数
+        
+        @SerializedName("fast_leaves")
+        public boolean fastLeaves = false; // 快速树叶：树叶按不透明方块渲染（镂空处显示为黑色）
+        
+        @SerializedName("transparency_mode")
+        public String transparencyMode = "sorted"; // 半透明渲染方式：sorted（按距离排序）或 weighted_blended（加权混合OIT，不排序）
+        
+        @SerializedName("occlusion_culling")
+        public boolean occlusionCulling = true; // 按分段连通性剔除被地形挡住的分段（洞穴剔除）
+        
+        @SerializedName("software_occlusion")
+        public boolean softwareOcclusion = true; // 在工作线程中把地形遮挡体光栅化到低分辨率深度缓冲区，剔除被挡住的分段
+        
+        @SerializedName("debug_stats")
+        public boolean debugStats = false; // 每秒在控制台输出分段剔除和四边形绘制统计
     }
     
     /**
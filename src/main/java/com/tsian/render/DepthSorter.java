@@ -0,0 +1,82 @@
+package com.tsian.render;
+
+import java.util.Arrays;
+
+/**
+ * 透明面深度排序 - 对量化后的距离键做LSD基数排序
+ *
+ * 距离平方是非负浮点数，其位模式与数值同序；去掉低7位尾数后得到24位键，
+ * 取反使远处的面键值更小，按8位一组排序3趟即为从远到近。
+ * 排序在调用方的int数组上进行，临时数组由实例保存并复用，排序过程不分配对象。
+ *
+ * 实例持有临时数组，不是线程安全的。
+ */
+public class DepthSorter {
+    
+    private static final int KEY_BITS = 24;
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+    
+    private final int[] counts = new int[RADIX];
+    private int[] scratchKeys = new int[0];
+    private int[] scratchValues = new int[0];
+    
+    /**
+     * 把距离平方量化为排序键（越远键值越小）
+     */
+    public static int farToNearKey(float distanceSquared) {
+        return ((1 << KEY_BITS) - 1) - (Float.floatToRawIntBits(distanceSquared) >>> (31 - KEY_BITS));
+    }
+    
+    /**
+     * 按键升序稳定排序前count个元素，values随键一起移动
+     * @param keys 24位排序键（farToNearKey的结果）
+     * @param values 随键移动的值（通常是面序号）
+     */
+    public void sort(int[] keys, int[] values, int count) {
+        if (count < 2) {
+            return;
+        }
+        if (scratchKeys.length < count) {
+            scratchKeys = new int[count];
+            scratchValues = new int[count];
+        }
+        
+        int[] srcKeys = keys, srcValues = values;
+        int[] dstKeys = scratchKeys, dstValues = scratchValues;
+        for (int shift = 0; shift < KEY_BITS; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < count; i++) {
+                counts[(srcKeys[i] >>> shift) & RADIX_MASK]++;
+            }
+            if (counts[(srcKeys[0] >>> shift) & RADIX_MASK] == count) {
+                continue; // 所有键在这一位组相同，跳过
+            }
+            
+            int offset = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int digitCount = counts[digit];
+                counts[digit] = offset;
+                offset += digitCount;
+            }
+            for (int i = 0; i < count; i++) {
+                int key = srcKeys[i];
+                int position = counts[(key >>> shift) & RADIX_MASK]++;
+                dstKeys[position] = key;
+                dstValues[position] = srcValues[i];
+            }
+            
+            int[] swapKeys = srcKeys, swapValues = srcValues;
+            srcKeys = dstKeys;
+            srcValues = dstValues;
+            dstKeys = swapKeys;
+            dstValues = swapValues;
+        }
+        
+        if (srcKeys != keys) { // 结果在临时数组中（排序了奇数趟）
+            System.arraycopy(srcKeys, 0, keys, 0, count);
+            System.arraycopy(srcValues, 0, values, 0, count);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.tsian.render;
+
+/**
+ * 视锥体 - 从投影矩阵和视图矩阵提取六个裁剪平面，用于剔除视野外的分段
+ *
+ * 矩阵为OpenGL列主序（与Camera.perspective和Camera.getViewMatrix一致）。
+ * 平面由 clip = projection * view 的行组合得到（Gribb-Hartmann方法），
+ * 法线指向视锥内部：点p在平面内侧当且仅当 a*x + b*y + c*z + d >= 0。
+ */
+public class Frustum {
+    
+    private final float[] clip = new float[16];
+    private final float[] planes = new float[6 * 4]; // 左、右、下、上、近、远，每个平面 (a, b, c, d)
+    
+    /**
+     * 根据本帧的矩阵更新裁剪平面
+     */
+    public void update(float[] projection, float[] view) {
+        // clip = projection * view（列主序：元素(row, col)位于 col * 4 + row）
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                float sum = 0.0f;
+                for (int k = 0; k < 4; k++) {
+                    sum += projection[k * 4 + row] * view[col * 4 + k];
+                }
+                clip[col * 4 + row] = sum;
+            }
+        }
+        
+        // 第4行 ± 第1/2/3行
+        for (int i = 0; i < 3; i++) {
+            setPlane(i * 2, 1.0f, i);      // 左、下、近：row3 + row_i
+            setPlane(i * 2 + 1, -1.0f, i); // 右、上、远：row3 - row_i
+        }
+    }
+    
+    private void setPlane(int plane, float sign, int row) {
+        float a = clip[3] + sign * clip[row];
+        float b = clip[7] + sign * clip[4 + row];
+        float c = clip[11] + sign * clip[8 + row];
+        float d = clip[15] + sign * clip[12 + row];
+        float length = (float) Math.sqrt(a * a + b * b + c * c);
+        planes[plane * 4] = a / length;
+        planes[plane * 4 + 1] = b / length;
+        planes[plane * 4 + 2] = c / length;
+        planes[plane * 4 + 3] = d / length;
+    }
+    
+    /**
+     * 轴对齐包围盒是否与视锥相交（保守判断：完全在某个平面外侧时才返回false）
+     */
+    public boolean intersectsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int i = 0; i < 6; i++) {
+            float a = planes[i * 4];
+            float b = planes[i * 4 + 1];
+            float c = planes[i * 4 + 2];
+            float d = planes[i * 4 + 3];
+            // 取包围盒在平面法线方向上最远的顶点，它都在外侧则整个包围盒在外侧
+            float x = a >= 0.0f ? maxX : minX;
+            float y = b >= 0.0f ? maxY : minY;
+            float z = c >= 0.0f ? maxZ : minZ;
+            if (a * x + b * y + c * z + d < 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
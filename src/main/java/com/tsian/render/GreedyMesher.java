@@ -0,0 +1,347 @@
+package com.tsian.render;
+
+import com.tsian.world.Block;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.PackedFaceList;
+import com.tsian.world.SectionSnapshot;
+
+import java.nio.IntBuffer;
+
+/**
+ * 贪心网格生成器 - 把同一平面上相邻、方块类型和AO都相同的面合并成一个大四边形
+ *
+ * 负责：
+ * - 按面方向和层收集分段中不透明层或镂空层（树叶）的可见面
+ * - 在每个平面上为每种（方块类型, AO）生成16行位掩码，用位运算找出矩形并输出四边形，
+ *   同一面方向的四边形连续输出（按面方向0-5的顺序），渲染时可以跳过背向摄像头的方向
+ * - 输出单个面（半透明方块仍逐面输出，以便按距离排序）
+ * - 计算顶点的环境光遮蔽（AO）
+ *
+ * 输入是分段快照，不访问World，因此可以在后台线程中运行。
+ * 顶点使用PackedVertex压缩格式，位置相对分段原点；片段着色器取面内坐标的小数部分在图集中重复贴图，
+ * 因此合并后的大四边形不需要额外的纹理坐标。
+ * 实例持有临时数组，只能在一个线程中使用。
+ */
+public class GreedyMesher {
+    
+    private static final int SIZE = ChunkSection.SIZE;
+    private static final int PLANE = SIZE * SIZE;
+    
+    // 一个分段最多的不透明和镂空四边形数（合并不会增加四边形数）：相邻两格之间最多有一个可见的不透明或镂空面
+    // （不透明方块遮住对方的面，同种镂空方块之间不输出面），加上分段边界上每格一个面，
+    // 即 3 * 16 * 16 * 15 + 6 * 16 * 16 = 13056，仍可使用16位索引
+    public static final int MAX_QUADS_PER_SECTION = 3 * PLANE * (SIZE - 1) + 6 * PLANE;
+    
+    // 每个面方向上第0个顶点相对方块最小角的偏移，以及四边形的s方向（顶点0→1）和t方向（顶点0→3）
+    private static final int[][] FACE_ORIGIN = {
+        {0, 0, 1}, {1, 0, 0}, {0, 0, 0}, {1, 0, 1}, {0, 1, 1}, {0, 0, 0}
+    };
+    private static final int[][] FACE_S_DIR = {
+        {1, 0, 0}, {-1, 0, 0}, {0, 0, 1}, {0, 0, -1}, {1, 0, 0}, {1, 0, 0}
+    };
+    private static final int[][] FACE_T_DIR = {
+        {0, 1, 0}, {0, 1, 0}, {0, 1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}
+    };
+    
+    // 四个顶点在面中的坐标（乘以宽/高）：0=(0,0) 1=(w,0) 2=(w,h) 3=(0,h)
+    private static final int[] CORNER_S = {0, 1, 1, 0};
+    private static final int[] CORNER_T = {0, 0, 1, 1};
+    
+    // 每个面（face * 4 + 顶点）计算AO时读取的三个相邻方块偏移：边缘方向1、边缘方向2、对角线方向
+    private static final int[][] AO_NEIGHBORS = {
+        // 前面 (+Z)
+        {-1, 0, 1,  0, -1, 1,  -1, -1, 1}, {1, 0, 1,  0, -1, 1,  1, -1, 1},
+        {1, 0, 1,  0, 1, 1,  1, 1, 1}, {-1, 0, 1,  0, 1, 1,  -1, 1, 1},
+        // 后面 (-Z)
+        {1, 0, -1,  0, -1, -1,  1, -1, -1}, {-1, 0, -1,  0, -1, -1,  -1, -1, -1},
+        {-1, 0, -1,  0, 1, -1,  -1, 1, -1}, {1, 0, -1,  0, 1, -1,  1, 1, -1},
+        // 左面 (-X)
+        {-1, 0, -1,  -1, -1, 0,  -1, -1, -1}, {-1, 0, 1,  -1, -1, 0,  -1, -1, 1},
+        {-1, 0, 1,  -1, 1, 0,  -1, 1, 1}, {-1, 0, -1,  -1, 1, 0,  -1, 1, -1},
+        // 右面 (+X)
+        {1, 0, 1,  1, -1, 0,  1, -1, 1}, {1, 0, -1,  1, -1, 0,  1, -1, -1},
+        {1, 0, -1,  1, 1, 0,  1, 1, -1}, {1, 0, 1,  1, 1, 0,  1, 1, 1},
+        // 上面 (+Y)
+        {-1, 1, 0,  0, 1, 1,  -1, 1, 1}, {1, 1, 0,  0, 1, 1,  1, 1, 1},
+        {1, 1, 0,  0, 1, -1,  1, 1, -1}, {-1, 1, 0,  0, 1, -1,  -1, 1, -1},
+        // 下面 (-Y)
+        {-1, -1, 0,  0, -1, -1,  -1, -1, -1}, {1, -1, 0,  0, -1, -1,  1, -1, -1},
+        {1, -1, 0,  0, -1, 1,  1, -1, 1}, {-1, -1, 0,  0, -1, 1,  -1, -1, 1}
+    };
+    
+    private final boolean fastLeaves; // 树叶按不透明方块处理（合并到不透明层）
+    private SectionSnapshot snapshot; // 当前处理的分段快照（用于AO计算）
+    
+    // 每个平面（face * 16 + layer）中的面，值为 (合并键 << 8 | b << 4 | a)，
+    // 合并键为 (方块ID << 8 | 四个顶点的AO等级)
+    private final int[] planeEntries = new int[6 * SIZE * PLANE];
+    private final int[] planeCounts = new int[6 * SIZE];
+    private final int[] usedLayers = new int[6]; // 每个面方向上有面的层（按位）
+    private final int[] keyRows = new int[SIZE]; // 当前合并键在平面中的位掩码，第b行的第a位
+    private final int[] faceQuadCounts = new int[6]; // 上一次合并每个面方向输出的四边形数
+    
+    public GreedyMesher() {
+        this(false);
+    }
+    
+    /**
+     * @param fastLeaves 为true时树叶按不透明方块输出，否则输出到镂空层
+     */
+    public GreedyMesher(boolean fastLeaves) {
+        this.fastLeaves = fastLeaves;
+    }
+    
+    /**
+     * 贪心合并分段的不透明可见面并写入顶点缓冲区（索引使用共享的QuadIndexBuffer）
+     * @return 写入的四边形数
+     */
+    public int meshOpaque(SectionSnapshot snapshot, IntBuffer vertexBuffer) {
+        return meshLayer(snapshot, false, vertexBuffer);
+    }
+    
+    /**
+     * 贪心合并分段的镂空层（透明度测试的方块，如树叶）可见面并写入顶点缓冲区
+     * @return 写入的四边形数
+     */
+    public int meshCutout(SectionSnapshot snapshot, IntBuffer vertexBuffer) {
+        return meshLayer(snapshot, true, vertexBuffer);
+    }
+    
+    private int meshLayer(SectionSnapshot snapshot, boolean cutout, IntBuffer vertexBuffer) {
+        this.snapshot = snapshot;
+        int quadCount = 0;
+        
+        // 把本层的面按（方向, 层, a, b）放入平面网格
+        for (int i = 0; i < snapshot.getFaceCount(); i++) {
+            int packed = snapshot.getFace(i);
+            int blockId = PackedFaceList.blockId(packed);
+            if (isTranslucent(blockId) || isCutout(blockId) != cutout) {
+                continue;
+            }
+            int x = PackedFaceList.localX(packed);
+            int y = PackedFaceList.localY(packed);
+            int z = PackedFaceList.localZ(packed);
+            int face = PackedFaceList.face(packed);
+            
+            int key = (blockId << 8) | calculateAOBits(x, y, z, face);
+            
+            int layer, a, b;
+            switch (face) {
+                case 0: layer = z; a = x; b = y; break;
+                case 1: layer = z; a = SIZE - 1 - x; b = y; break;
+                case 2: layer = x; a = z; b = y; break;
+                case 3: layer = x; a = SIZE - 1 - z; b = y; break;
+                case 4: layer = y; a = x; b = SIZE - 1 - z; break;
+                default: layer = y; a = x; b = z; break;
+            }
+            int plane = face * SIZE + layer;
+            planeEntries[plane * PLANE + planeCounts[plane]++] = (key << 8) | (b << 4) | a;
+            usedLayers[face] |= 1 << layer;
+        }
+        
+        // 在每个有面的平面上贪心合并（按面方向顺序，同一方向的四边形连续）
+        for (int face = 0; face < 6; face++) {
+            int layers = usedLayers[face];
+            usedLayers[face] = 0;
+            int faceQuads = 0;
+            while (layers != 0) {
+                int layer = Integer.numberOfTrailingZeros(layers);
+                layers &= layers - 1;
+                faceQuads += mergePlane(face, layer, vertexBuffer);
+            }
+            faceQuadCounts[face] = faceQuads;
+            quadCount += faceQuads;
+        }
+        return quadCount;
+    }
+    
+    /**
+     * 上一次meshOpaque或meshCutout在面方向face上输出的四边形数
+     */
+    public int getFaceQuadCount(int face) {
+        return faceQuadCounts[face];
+    }
+    
+    /**
+     * 合并一个平面上的面
+     *
+     * 依次取出平面中的每种合并键，构建它的16行位掩码，然后在掩码上贪心：
+     * 用numberOfTrailingZeros找到行内第一个面，用取反后的尾零数得到连续长度，
+     * 再向后续行扩展，只要下一行完整包含这段位就继续并清除这些位。
+     * @return 输出的四边形数
+     */
+    private int mergePlane(int face, int layer, IntBuffer vertexBuffer) {
+        int quadCount = 0;
+        int plane = face * SIZE + layer;
+        int start = plane * PLANE;
+        int end = start + planeCounts[plane];
+        planeCounts[plane] = 0;
+        
+        for (int i = start; i < end; i++) {
+            int entry = planeEntries[i];
+            if (entry < 0) {
+                continue; // 已随之前的合并键处理过
+            }
+            
+            // 收集与此面合并键相同的所有面
+            int key = entry >>> 8;
+            for (int j = i; j < end; j++) {
+                int other = planeEntries[j];
+                if (other >= 0 && (other >>> 8) == key) {
+                    keyRows[(other >>> 4) & 0xF] |= 1 << (other & 0xF);
+                    planeEntries[j] = -1;
+                }
+            }
+            
+            int blockId = key >>> 8;
+            int ao = key & 0xFF;
+            
+            for (int b = 0; b < SIZE; b++) {
+                int row = keyRows[b];
+                while (row != 0) {
+                    int a = Integer.numberOfTrailingZeros(row);
+                    int width = Integer.numberOfTrailingZeros(~(row >>> a));
+                    int runMask = ((1 << width) - 1) << a;
+                    row &= ~runMask;
+                    
+                    int height = 1;
+                    while (b + height < SIZE && (keyRows[b + height] & runMask) == runMask) {
+                        keyRows[b + height] &= ~runMask;
+                        height++;
+                    }
+                    
+                    // 矩形的起始格子即四边形第0个顶点所在的方块
+                    int x, y, z;
+                    switch (face) {
+                        case 0: x = a; y = b; z = layer; break;
+                        case 1: x = SIZE - 1 - a; y = b; z = layer; break;
+                        case 2: x = layer; y = b; z = a; break;
+                        case 3: x = layer; y = b; z = SIZE - 1 - a; break;
+                        case 4: x = a; y = layer; z = SIZE - 1 - b; break;
+                        default: x = a; y = layer; z = b; break;
+                    }
+                    
+                    addQuad(x, y, z, face, width, height, blockId, ao, vertexBuffer);
+                    quadCount++;
+                }
+                keyRows[b] = 0;
+            }
+        }
+        return quadCount;
+    }
+    
+    /**
+     * 逐面输出分段的不透明可见面（不合并，用于基准对比）
+     * @return 写入的四边形数
+     */
+    public int meshOpaquePerFace(SectionSnapshot snapshot, IntBuffer vertexBuffer) {
+        int quadCount = 0;
+        for (int i = 0; i < snapshot.getFaceCount(); i++) {
+            int packed = snapshot.getFace(i);
+            int blockId = PackedFaceList.blockId(packed);
+            if (isTranslucent(blockId) || isCutout(blockId)) {
+                continue;
+            }
+            int x = PackedFaceList.localX(packed);
+            int y = PackedFaceList.localY(packed);
+            int z = PackedFaceList.localZ(packed);
+            int face = PackedFaceList.face(packed);
+            addFace(x, y, z, Block.BlockType.fromId(blockId), face, calculateAO(snapshot, x, y, z, face), vertexBuffer);
+            quadCount++;
+        }
+        return quadCount;
+    }
+    
+    /**
+     * 计算分段内一个面四个顶点的AO等级（局部坐标）
+     * @return 压缩的AO等级，第v个顶点占第2v到2v+1位
+     */
+    public int calculateAO(SectionSnapshot snapshot, int localX, int localY, int localZ, int face) {
+        this.snapshot = snapshot;
+        return calculateAOBits(localX, localY, localZ, face);
+    }
+    
+    /**
+     * 添加单个方块面到缓冲区（坐标相对网格原点，AO为calculateAO的结果）
+     */
+    public void addFace(int x, int y, int z, Block.BlockType type, int face, int ao, IntBuffer vertexBuffer) {
+        addQuad(x, y, z, face, 1, 1, type.getId(), ao, vertexBuffer);
+    }
+    
+    /**
+     * 添加一个四边形（从方块(x, y, z)的第0个顶点开始，沿s方向width格、t方向height格）
+     * 顶点坐标和属性全部由静态表计算，不分配任何对象
+     * @param ao 压缩的四个顶点AO等级
+     */
+    private static void addQuad(int x, int y, int z, int face, int width, int height, int blockId, int ao,
+                                IntBuffer vertexBuffer) {
+        int[] origin = FACE_ORIGIN[face];
+        int[] sDir = FACE_S_DIR[face];
+        int[] tDir = FACE_T_DIR[face];
+        
+        int x0 = x + origin[0];
+        int y0 = y + origin[1];
+        int z0 = z + origin[2];
+        
+        for (int i = 0; i < 4; i++) {
+            int s = CORNER_S[i] * width;
+            int t = CORNER_T[i] * height;
+            
+            vertexBuffer.put(PackedVertex.position(x0 + sDir[0] * s + tDir[0] * t,
+                                                   y0 + sDir[1] * s + tDir[1] * t,
+                                                   z0 + sDir[2] * s + tDir[2] * t));
+            vertexBuffer.put(PackedVertex.attributes(face, (ao >>> (i * 2)) & 3, blockId));
+        }
+    }
+    
+    /**
+     * 是否为半透明方块（水），需要混合并按距离排序
+     */
+    public static boolean isTranslucent(int blockId) {
+        return blockId == Block.BlockType.WATER.getId();
+    }
+    
+    /**
+     * 是否输出到镂空层（树叶，快速树叶模式下按不透明处理）
+     */
+    public boolean isCutout(int blockId) {
+        return !fastLeaves && blockId == Block.BlockType.LEAVES.getId();
+    }
+    
+    /**
+     * 计算面四个顶点的AO等级（分段内局部坐标）
+     * 使用Minecraft风格的环境光遮蔽算法，相邻方块的偏移取自AO_NEIGHBORS表
+     * @return 压缩的AO等级，第v个顶点占第2v到2v+1位
+     */
+    private int calculateAOBits(int x, int y, int z, int face) {
+        int bits = 0;
+        for (int v = 0; v < 4; v++) {
+            int[] n = AO_NEIGHBORS[face * 4 + v];
+            boolean side1Solid = isSolid(x + n[0], y + n[1], z + n[2]); // 边缘方向1
+            boolean side2Solid = isSolid(x + n[3], y + n[4], z + n[5]); // 边缘方向2
+            boolean cornerSolid = isSolid(x + n[6], y + n[7], z + n[8]); // 对角线方向
+            bits |= vertexAO(side1Solid, side2Solid, cornerSolid) << (v * 2);
+        }
+        return bits;
+    }
+    
+    /**
+     * 计算单个顶点的AO等级
+     * 两个边缘方向都被遮挡时最暗，其次是一侧遮挡，只有对角线遮挡时最轻
+     */
+    private static int vertexAO(boolean side1Solid, boolean side2Solid, boolean cornerSolid) {
+        if (side1Solid && side2Solid) {
+            return 3; // 强遮蔽
+        } else if (side1Solid || side2Solid) {
+            return 2; // 中等遮蔽
+        } else if (cornerSolid) {
+            return 1; // 轻微遮蔽
+        } else {
+            return 0; // 无遮蔽
+        }
+    }
+    
+    private boolean isSolid(int x, int y, int z) {
+        return snapshot.isSolid(x, y, z);
+    }
+}
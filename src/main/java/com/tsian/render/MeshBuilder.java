@@ -0,0 +1,276 @@
+package com.tsian.render;
+
+import com.tsian.world.Block;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.ChunkTaskScheduler;
+import com.tsian.world.PackedFaceList;
+import com.tsian.world.SectionSnapshot;
+
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 后台网格构建器 - 在工作线程中根据分段快照生成不透明和透明几何的顶点数据
+ *
+ * 负责：
+ * - 按到摄像头的距离排队构建任务，同一分段的新任务会取消旧任务
+ * - 每个工作线程使用自己的GreedyMesher，把顶点输出到缓冲区池中的本地内存（索引由QuadIndexBuffer共享）
+ * - 计算分段各面之间的连通性和粗略的遮挡体，供渲染线程做遮挡剔除
+ * - 保存完成的结果，由渲染线程取出后上传到GPU
+ *
+ * submit和pollCompleted只在渲染线程调用；取出的结果必须调用free把缓冲区还给池。
+ */
+public class MeshBuilder {
+    
+    // 摄像头移动或转向超过这些幅度时才重新计算排队任务的优先级（与World对区块加载的处理相同）
+    private static final float REPRIORITIZE_DISTANCE = 1.0f;
+    private static final float REPRIORITIZE_COS_ANGLE = 0.966f;
+    
+    private final ChunkTaskScheduler scheduler;
+    private final NativeBufferPool bufferPool;
+    private final ThreadLocal<GreedyMesher> meshers;
+    private final ThreadLocal<SectionConnectivity> connectivities = ThreadLocal.withInitial(SectionConnectivity::new);
+    private final Map<ChunkSection, MeshTask> pendingTasks = new HashMap<>(); // 每个分段最新提交的任务
+    private final ConcurrentLinkedQueue<MeshTask> completedTasks = new ConcurrentLinkedQueue<>();
+    
+    // 上次设置的优先级参考点
+    private float focusX = Float.NaN;
+    private float focusZ = Float.NaN;
+    private float focusLookX = 0.0f;
+    private float focusLookZ = -1.0f;
+    
+    /**
+     * @param fastLeaves 树叶按不透明方块输出（不使用镂空层）
+     */
+    public MeshBuilder(int threadCount, NativeBufferPool bufferPool, boolean fastLeaves) {
+        this.scheduler = new ChunkTaskScheduler(threadCount, 180.0f, "mesh-worker");
+        this.bufferPool = bufferPool;
+        this.meshers = ThreadLocal.withInitial(() -> new GreedyMesher(fastLeaves));
+    }
+    
+    /**
+     * 设置优先级参考点（离摄像头近、在视线方向上的分段先构建），每帧调用
+     *
+     * 摄像头移动超过一格或转向超过约15度时才更新参考点并重新排列排队的任务。
+     * @param lookX 视线方向X分量（不需要归一化，垂直向上/下看时沿用上次的方向）
+     * @param lookZ 视线方向Z分量
+     */
+    public void setFocus(float cameraX, float cameraZ, float lookX, float lookZ) {
+        float lookLength = (float) Math.sqrt(lookX * lookX + lookZ * lookZ);
+        if (lookLength > 1e-3f) {
+            lookX /= lookLength;
+            lookZ /= lookLength;
+        } else {
+            lookX = focusLookX;
+            lookZ = focusLookZ;
+        }
+        
+        boolean moved = !(Math.abs(cameraX - focusX) <= REPRIORITIZE_DISTANCE &&
+                          Math.abs(cameraZ - focusZ) <= REPRIORITIZE_DISTANCE); // 第一次调用时focusX为NaN
+        boolean turned = lookX * focusLookX + lookZ * focusLookZ < REPRIORITIZE_COS_ANGLE;
+        if (!moved && !turned) {
+            return;
+        }
+        focusX = cameraX;
+        focusZ = cameraZ;
+        focusLookX = lookX;
+        focusLookZ = lookZ;
+        scheduler.setFocus(cameraX, cameraZ, lookX, lookZ, 0.0f, 0.0f);
+        if (!pendingTasks.isEmpty()) {
+            scheduler.reprioritize();
+        }
+    }
+    
+    /**
+     * 提交分段的网格构建任务，取代该分段尚未完成的旧任务
+     */
+    public void submit(ChunkSection section, SectionSnapshot snapshot) {
+        MeshTask task = new MeshTask(section, snapshot, bufferPool);
+        MeshTask previous = pendingTasks.put(section, task);
+        if (previous != null && previous.schedulerTask != null) {
+            scheduler.cancel(previous.schedulerTask);
+        }
+        task.schedulerTask = scheduler.submit(snapshot.getChunkX(), snapshot.getChunkZ(),
+                                              () -> build(task), failed -> fail(task));
+    }
+    
+    /**
+     * 取出一个已完成的最新任务（过期的结果直接释放），没有时返回null
+     *
+     * 构建失败的任务从排队记录中移除（分段保留原来的网格，下次变化时重新提交）。
+     */
+    public MeshTask pollCompleted() {
+        MeshTask task;
+        while ((task = completedTasks.poll()) != null) {
+            if (pendingTasks.get(task.section) == task) {
+                pendingTasks.remove(task.section);
+                if (!task.failed) {
+                    return task;
+                }
+                System.err.println("Mesh build failed for section (" + task.snapshot.getChunkX() + ", " +
+                                   task.snapshot.getSectionY() + ", " + task.snapshot.getChunkZ() + ")");
+            }
+            task.free(); // 已被更新的任务取代
+        }
+        return null;
+    }
+    
+    /**
+     * 排队中和构建中的任务数
+     */
+    public int getPendingCount() {
+        return pendingTasks.size();
+    }
+    
+    /**
+     * 在工作线程中构建分段网格
+     */
+    private void build(MeshTask task) {
+        SectionSnapshot snapshot = task.snapshot;
+        GreedyMesher mesher = meshers.get();
+        
+        int transparentCount = 0;
+        for (int i = 0; i < snapshot.getFaceCount(); i++) {
+            if (GreedyMesher.isTranslucent(PackedFaceList.blockId(snapshot.getFace(i)))) {
+                transparentCount++;
+            }
+        }
+        int opaqueCount = snapshot.getFaceCount() - transparentCount; // 不透明层和镂空层的面数
+        
+        // 半透明面逐面输出（位置相对分段原点），同时记录世界坐标用于渲染时按距离排序
+        int[] positions = new int[transparentCount * 3];
+        IntBuffer transparentVertexBuffer = null;
+        IntBuffer vertexBuffer = null;
+        int[] faceQuadCounts = new int[6];
+        int cutoutQuadCount;
+        long connectivityBits;
+        int[] occluderBoxes;
+        try {
+            if (transparentCount > 0) {
+                transparentVertexBuffer = bufferPool.acquireInt(transparentCount * 4 * PackedVertex.INTS_PER_VERTEX);
+                int index = 0;
+                for (int i = 0; i < snapshot.getFaceCount(); i++) {
+                    int packed = snapshot.getFace(i);
+                    int blockId = PackedFaceList.blockId(packed);
+                    if (!GreedyMesher.isTranslucent(blockId)) {
+                        continue;
+                    }
+                    int x = PackedFaceList.localX(packed);
+                    int y = PackedFaceList.localY(packed);
+                    int z = PackedFaceList.localZ(packed);
+                    int face = PackedFaceList.face(packed);
+                    positions[index * 3] = snapshot.getOriginX() + x;
+                    positions[index * 3 + 1] = snapshot.getOriginY() + y;
+                    positions[index * 3 + 2] = snapshot.getOriginZ() + z;
+                    mesher.addFace(x, y, z, Block.BlockType.fromId(blockId), face,
+                                   mesher.calculateAO(snapshot, x, y, z, face), transparentVertexBuffer);
+                    index++;
+                }
+                transparentVertexBuffer.flip();
+            }
+            
+            // 不透明层和镂空层贪心合并（合并后的四边形数不会超过面数），镂空层紧接在不透明层之后
+            vertexBuffer = bufferPool.acquireInt(Math.max(opaqueCount, 1) * 4 * PackedVertex.INTS_PER_VERTEX);
+            mesher.meshOpaque(snapshot, vertexBuffer);
+            for (int face = 0; face < 6; face++) {
+                faceQuadCounts[face] = mesher.getFaceQuadCount(face);
+            }
+            cutoutQuadCount = mesher.meshCutout(snapshot, vertexBuffer);
+            vertexBuffer.flip();
+            
+            SectionConnectivity connectivity = connectivities.get();
+            connectivityBits = connectivity.compute(snapshot);
+            occluderBoxes = connectivity.computeOccluders(snapshot);
+        } catch (RuntimeException e) {
+            if (transparentVertexBuffer != null) {
+                bufferPool.release(transparentVertexBuffer);
+            }
+            if (vertexBuffer != null) {
+                bufferPool.release(vertexBuffer);
+            }
+            throw e;
+        }
+        
+        task.connectivity = connectivityBits;
+        task.occluderBoxes = occluderBoxes;
+        task.vertexBuffer = vertexBuffer;
+        task.faceQuadCounts = faceQuadCounts;
+        task.cutoutQuadCount = cutoutQuadCount;
+        task.transparentPositions = positions;
+        task.transparentVertexBuffer = transparentVertexBuffer;
+        completedTasks.add(task);
+    }
+    
+    /**
+     * 构建失败（在工作线程中调用，build已释放缓冲区）：作为没有结果的任务发布，由渲染线程清除排队记录
+     */
+    private void fail(MeshTask task) {
+        task.failed = true;
+        completedTasks.add(task);
+    }
+    
+    /**
+     * 停止工作线程并释放未取出的结果
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        MeshTask task;
+        while ((task = completedTasks.poll()) != null) {
+            task.free();
+        }
+        pendingTasks.clear();
+    }
+    
+    /**
+     * 分段网格构建任务及其结果
+     */
+    public static class MeshTask {
+        public final ChunkSection section;
+        private final SectionSnapshot snapshot;
+        private final NativeBufferPool bufferPool;
+        private ChunkTaskScheduler.ChunkTask schedulerTask;
+        
+        // 结果（工作线程写入，通过完成队列发布给渲染线程）
+        private boolean failed; // 构建抛出异常，没有结果
+        private IntBuffer vertexBuffer; // PackedVertex格式，位置相对分段原点
+        private int[] faceQuadCounts; // 不透明层每个面方向的四边形数（按面方向顺序连续存放）
+        private int cutoutQuadCount; // 镂空层的四边形数（在顶点缓冲区中位于不透明层之后）
+        private int[] transparentPositions; // 透明面的世界坐标
+        private IntBuffer transparentVertexBuffer; // 透明面顶点（PackedVertex格式，位置相对分段原点），没有透明面时为null
+        private long connectivity; // 面之间的连通性（格式见SectionConnectivity）
+        private int[] occluderBoxes; // 遮挡体（相对分段原点，格式见SectionConnectivity.computeOccluders）
+        
+        private MeshTask(ChunkSection section, SectionSnapshot snapshot, NativeBufferPool bufferPool) {
+            this.section = section;
+            this.snapshot = snapshot;
+            this.bufferPool = bufferPool;
+        }
+        
+        public IntBuffer getVertexBuffer() { return vertexBuffer; }
+        public int[] getFaceQuadCounts() { return faceQuadCounts; }
+        public int getCutoutQuadCount() { return cutoutQuadCount; }
+        public int[] getTransparentPositions() { return transparentPositions; }
+        public IntBuffer getTransparentVertexBuffer() { return transparentVertexBuffer; }
+        public long getConnectivity() { return connectivity; }
+        public int[] getOccluderBoxes() { return occluderBoxes; }
+        public int getOriginX() { return snapshot.getOriginX(); }
+        public int getOriginY() { return snapshot.getOriginY(); }
+        public int getOriginZ() { return snapshot.getOriginZ(); }
+        
+        /**
+         * 把结果缓冲区还给缓冲区池
+         */
+        public void free() {
+            if (vertexBuffer != null) {
+                bufferPool.release(vertexBuffer);
+                vertexBuffer = null;
+            }
+            if (transparentVertexBuffer != null) {
+                bufferPool.release(transparentVertexBuffer);
+                transparentVertexBuffer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.tsian.render;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * 本地内存缓冲区池 - 网格暂存缓冲区按大小分级复用
+ *
+ * 容量向上取整到2的幂（最小1024个int），归还后留在对应级别的空闲列表中，
+ * 下次申请同一级别时直接复用，避免每次重建都分配和释放本地内存。
+ * 每个级别最多保留MAX_POOLED_PER_CLASS个空闲缓冲区，多余的直接释放，
+ * 因此长时间运行时占用的本地内存保持稳定。
+ *
+ * 工作线程申请、渲染线程归还，所有方法都是线程安全的。
+ */
+public class NativeBufferPool {
+    
+    private static final int MIN_CLASS_SHIFT = 10; // 最小级别1024个int（4KB）
+    private static final int CLASS_COUNT = 31 - MIN_CLASS_SHIFT;
+    private static final int MAX_POOLED_PER_CLASS = 8;
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<IntBuffer>[] freeLists = new ArrayDeque[CLASS_COUNT];
+    
+    private long liveBytes; // 已借出的缓冲区
+    private long pooledBytes; // 空闲列表中的缓冲区
+    private long peakBytes; // 借出与空闲之和的峰值
+    private long allocationCount; // 实际分配本地内存的次数
+    
+    public NativeBufferPool() {
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            freeLists[i] = new ArrayDeque<>();
+        }
+    }
+    
+    /**
+     * 申请至少能容纳capacity个int的缓冲区（position为0，limit为capacity）
+     */
+    public synchronized IntBuffer acquireInt(int capacity) {
+        int sizeClass = sizeClass(Math.max(capacity, 1));
+        IntBuffer buffer = freeLists[sizeClass].pollFirst();
+        long bytes = classBytes(sizeClass);
+        if (buffer != null) {
+            pooledBytes -= bytes;
+        } else {
+            buffer = MemoryUtil.memAllocInt(1 << (sizeClass + MIN_CLASS_SHIFT));
+            allocationCount++;
+        }
+        liveBytes += bytes;
+        peakBytes = Math.max(peakBytes, liveBytes + pooledBytes);
+        
+        buffer.clear();
+        buffer.limit(capacity);
+        return buffer;
+    }
+    
+    /**
+     * 归还acquireInt得到的缓冲区，之后不能再使用
+     */
+    public synchronized void release(IntBuffer buffer) {
+        int sizeClass = sizeClass(buffer.capacity());
+        long bytes = classBytes(sizeClass);
+        liveBytes -= bytes;
+        
+        ArrayDeque<IntBuffer> freeList = freeLists[sizeClass];
+        if (freeList.size() < MAX_POOLED_PER_CLASS) {
+            freeList.addFirst(buffer); // 后进先出，复用最近使用过的内存
+            pooledBytes += bytes;
+        } else {
+            MemoryUtil.memFree(buffer);
+        }
+    }
+    
+    /**
+     * 释放所有空闲缓冲区（借出的缓冲区归还时仍会进入空闲列表）
+     */
+    public synchronized void freeAll() {
+        for (ArrayDeque<IntBuffer> freeList : freeLists) {
+            IntBuffer buffer;
+            while ((buffer = freeList.pollFirst()) != null) {
+                MemoryUtil.memFree(buffer);
+            }
+        }
+        pooledBytes = 0;
+    }
+    
+    private static int sizeClass(int capacity) {
+        int shift = 32 - Integer.numberOfLeadingZeros(capacity - 1); // 向上取整到2的幂
+        return Math.max(shift, MIN_CLASS_SHIFT) - MIN_CLASS_SHIFT;
+    }
+    
+    private static long classBytes(int sizeClass) {
+        return (long) Integer.BYTES << (sizeClass + MIN_CLASS_SHIFT);
+    }
+    
+    public synchronized long getLiveBytes() { return liveBytes; }
+    public synchronized long getPooledBytes() { return pooledBytes; }
+    public synchronized long getPeakBytes() { return peakBytes; }
+    public synchronized long getAllocationCount() { return allocationCount; }
+}
@@ -0,0 +1,207 @@
+package com.tsian.render;
+
+import java.util.Arrays;
+
+/**
+ * 软件遮挡光栅化 - 在CPU上把粗略的遮挡体画进低分辨率深度缓冲区，再用它测试分段包围盒
+ *
+ * 深度为裁剪空间的w（即视线方向的距离），每个像素保存最近的遮挡体深度。两边的判断都是保守的：
+ * - 遮挡体按8个角投影后的凸包绘制，只写入被凸包完全覆盖的像素，深度取最远的角；
+ *   有角在近平面以内的遮挡体不绘制
+ * - 包围盒被遮挡当且仅当它投影矩形接触的所有像素中的遮挡体都比它最近的角更近；
+ *   有角在近平面以内的包围盒总是判定为可见
+ * 因此部分被遮挡体覆盖的低分辨率像素不会挡住从未覆盖部分看到的分段。
+ *
+ * 矩阵为OpenGL列主序（与Camera.perspective和Camera.getViewMatrix一致）。
+ * 实例不是线程安全的：begin之后rasterize和isBoxOccluded可以在另一个线程中调用，但不能同时进行。
+ */
+public class OcclusionRasterizer {
+    
+    public static final int WIDTH = 256;
+    public static final int HEIGHT = 128;
+    
+    private static final float MIN_W = 0.1f; // 比这更近（或在摄像头后方）的顶点不参与光栅化
+    
+    private final float[] depth = new float[WIDTH * HEIGHT];
+    private final float[] clip = new float[16];
+    
+    // 长方体8个角投影后的屏幕坐标和深度（角的序号：第0位为x、第1位为y、第2位为z是否取最大值）
+    private final float[] screenX = new float[8];
+    private final float[] screenY = new float[8];
+    private final float[] screenW = new float[8];
+    
+    // 投影后的凸包（逆时针），最多8个顶点
+    private final int[] sorted = new int[8];
+    private final int[] hull = new int[16];
+    
+    /**
+     * 设置本帧的矩阵（clip = projection * view）
+     */
+    public void begin(float[] projection, float[] view) {
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                float sum = 0.0f;
+                for (int k = 0; k < 4; k++) {
+                    sum += projection[k * 4 + row] * view[col * 4 + k];
+                }
+                clip[col * 4 + row] = sum;
+            }
+        }
+    }
+    
+    /**
+     * 清空深度缓冲区并绘制遮挡体
+     * @param boxes 每个遮挡体6个浮点数（minX, minY, minZ, maxX, maxY, maxZ，世界坐标）
+     */
+    public void rasterize(float[] boxes, int boxCount) {
+        Arrays.fill(depth, Float.POSITIVE_INFINITY);
+        for (int i = 0; i < boxCount; i++) {
+            int base = i * 6;
+            rasterizeBox(boxes[base], boxes[base + 1], boxes[base + 2], boxes[base + 3], boxes[base + 4], boxes[base + 5]);
+        }
+    }
+    
+    /**
+     * 绘制一个遮挡体：只写入被投影凸包完全覆盖的像素，深度取最远的角
+     */
+    public void rasterizeBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (!projectBox(minX, minY, minZ, maxX, maxY, maxZ)) {
+            return;
+        }
+        int hullSize = buildHull();
+        if (hullSize < 3) {
+            return;
+        }
+        
+        float left = screenX[0], right = screenX[0], bottom = screenY[0], top = screenY[0], farthest = screenW[0];
+        for (int i = 1; i < 8; i++) {
+            left = Math.min(left, screenX[i]);
+            right = Math.max(right, screenX[i]);
+            bottom = Math.min(bottom, screenY[i]);
+            top = Math.max(top, screenY[i]);
+            farthest = Math.max(farthest, screenW[i]);
+        }
+        
+        // 像素 [x, x+1) x [y, y+1) 完全在凸包内：中心到每条边的有向距离（按边函数的梯度）至少为半个像素
+        int x0 = Math.max(0, (int) Math.ceil(left));
+        int x1 = Math.min(WIDTH - 1, (int) Math.floor(right) - 1);
+        int y0 = Math.max(0, (int) Math.ceil(bottom));
+        int y1 = Math.min(HEIGHT - 1, (int) Math.floor(top) - 1);
+        for (int y = y0; y <= y1; y++) {
+            float py = y + 0.5f;
+            int row = y * WIDTH;
+            for (int x = x0; x <= x1; x++) {
+                if (farthest >= depth[row + x]) {
+                    continue;
+                }
+                float px = x + 0.5f;
+                boolean covered = true;
+                for (int i = 0; i < hullSize && covered; i++) {
+                    int a = hull[i];
+                    int b = hull[i + 1 == hullSize ? 0 : i + 1];
+                    float edgeX = screenX[b] - screenX[a];
+                    float edgeY = screenY[b] - screenY[a];
+                    float distance = edgeX * (py - screenY[a]) - edgeY * (px - screenX[a]);
+                    covered = distance >= 0.5f * (Math.abs(edgeX) + Math.abs(edgeY));
+                }
+                if (covered) {
+                    depth[row + x] = farthest;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 包围盒是否被已绘制的遮挡体完全挡住
+     */
+    public boolean isBoxOccluded(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (!projectBox(minX, minY, minZ, maxX, maxY, maxZ)) {
+            return false;
+        }
+        
+        float left = screenX[0], right = screenX[0], bottom = screenY[0], top = screenY[0], nearest = screenW[0];
+        for (int i = 1; i < 8; i++) {
+            left = Math.min(left, screenX[i]);
+            right = Math.max(right, screenX[i]);
+            bottom = Math.min(bottom, screenY[i]);
+            top = Math.max(top, screenY[i]);
+            nearest = Math.min(nearest, screenW[i]);
+        }
+        
+        // 与投影矩形相交的所有像素
+        int x0 = Math.max(0, (int) Math.floor(left));
+        int x1 = Math.min(WIDTH - 1, (int) Math.ceil(right) - 1);
+        int y0 = Math.max(0, (int) Math.floor(bottom));
+        int y1 = Math.min(HEIGHT - 1, (int) Math.ceil(top) - 1);
+        if (x0 > x1 || y0 > y1) {
+            return false; // 在屏幕外（由视锥剔除处理）
+        }
+        for (int y = y0; y <= y1; y++) {
+            int row = y * WIDTH;
+            for (int x = x0; x <= x1; x++) {
+                if (depth[row + x] >= nearest) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 把长方体的8个角投影到像素坐标，有角在近平面以内时返回false
+     */
+    private boolean projectBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int i = 0; i < 8; i++) {
+            float x = (i & 1) != 0 ? maxX : minX;
+            float y = (i & 2) != 0 ? maxY : minY;
+            float z = (i & 4) != 0 ? maxZ : minZ;
+            float w = clip[3] * x + clip[7] * y + clip[11] * z + clip[15];
+            if (w < MIN_W) {
+                return false;
+            }
+            float clipX = clip[0] * x + clip[4] * y + clip[8] * z + clip[12];
+            float clipY = clip[1] * x + clip[5] * y + clip[9] * z + clip[13];
+            screenX[i] = (clipX / w * 0.5f + 0.5f) * WIDTH;
+            screenY[i] = (clipY / w * 0.5f + 0.5f) * HEIGHT;
+            screenW[i] = w;
+        }
+        return true;
+    }
+    
+    /**
+     * 计算8个投影角的凸包（Andrew单调链），顶点序号按逆时针存入hull
+     * @return 凸包顶点数
+     */
+    private int buildHull() {
+        for (int i = 0; i < 8; i++) {
+            int corner = i;
+            int j = i;
+            while (j > 0 && (screenX[sorted[j - 1]] > screenX[corner] ||
+                    (screenX[sorted[j - 1]] == screenX[corner] && screenY[sorted[j - 1]] > screenY[corner]))) {
+                sorted[j] = sorted[j - 1];
+                j--;
+            }
+            sorted[j] = corner;
+        }
+        
+        int size = 0;
+        for (int i = 0; i < 8; i++) { // 下半部分
+            while (size >= 2 && cross(hull[size - 2], hull[size - 1], sorted[i]) <= 0.0f) {
+                size--;
+            }
+            hull[size++] = sorted[i];
+        }
+        int lower = size + 1;
+        for (int i = 6; i >= 0; i--) { // 上半部分
+            while (size >= lower && cross(hull[size - 2], hull[size - 1], sorted[i]) <= 0.0f) {
+                size--;
+            }
+            hull[size++] = sorted[i];
+        }
+        return size - 1; // 最后一个顶点与第一个相同
+    }
+    
+    private float cross(int o, int a, int b) {
+        return (screenX[a] - screenX[o]) * (screenY[b] - screenY[o]) - (screenY[a] - screenY[o]) * (screenX[b] - screenX[o]);
+    }
+}
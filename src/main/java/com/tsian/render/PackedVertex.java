@@ -0,0 +1,64 @@
+package com.tsian.render;
+
+import com.tsian.world.Block;
+
+/**
+ * 压缩顶点格式 - 每个顶点两个32位整数（8字节），由block.vert解码
+ *
+ * 第一个整数（位置，相对分段原点，加偏移后存为无符号数）：
+ * - 0-10  X + 1024
+ * - 11-20 Y + 512
+ * - 21-31 Z + 1024
+ *
+ * 第二个整数（面属性）：
+ * - 0-2   面方向（0=+Z 1=-Z 2=-X 3=+X 4=+Y 5=-Y），着色器据此得到法线和面内坐标
+ * - 3-4   顶点AO等级
+ * - 8-15  方块类型ID
+ * - 16-19 贴图在图集中的列
+ * - 20-23 贴图上边缘所在的行（贴图左下角纹理坐标为 (列, 行) * 贴图大小）
+ *
+ * 所有网格（不透明、镂空和透明）的原点都是分段的最小角，坐标只用到0-16，
+ * 位置字段的宽度和偏移远大于所需，block.vert按同样的布局解码。
+ */
+public final class PackedVertex {
+    
+    public static final int INTS_PER_VERTEX = 2;
+    public static final int BYTES_PER_VERTEX = INTS_PER_VERTEX * Integer.BYTES;
+    
+    private static final int POSITION_BIAS_XZ = 1024; // X、Z的可表示范围为 [-1024, 1023]
+    private static final int POSITION_BIAS_Y = 512; // Y的可表示范围为 [-512, 511]
+    
+    private static final int ATLAS_COLUMNS = 4; // 图集为4x3个贴图
+    private static final int ATLAS_ROWS = 3;
+    
+    // 每种方块每个面的贴图位（第二个整数的16-23位），避免每个顶点查询并创建纹理坐标数组
+    private static final int[][] TILE_BITS = new int[256][6];
+    
+    static {
+        for (Block.BlockType type : Block.BlockType.values()) {
+            for (int face = 0; face < 6; face++) {
+                float[] texCoords = type.getTextureCoords(face);
+                int column = Math.round(texCoords[0] * ATLAS_COLUMNS);
+                int row = Math.round(texCoords[3] * ATLAS_ROWS);
+                TILE_BITS[type.getId()][face] = (column << 16) | (row << 20);
+            }
+        }
+    }
+    
+    private PackedVertex() {
+    }
+    
+    /**
+     * 压缩顶点位置（相对网格原点）
+     */
+    public static int position(int x, int y, int z) {
+        return (x + POSITION_BIAS_XZ) | ((y + POSITION_BIAS_Y) << 11) | ((z + POSITION_BIAS_XZ) << 21);
+    }
+    
+    /**
+     * 压缩面属性（同一个面的四个顶点只有AO不同）
+     */
+    public static int attributes(int face, int ao, int blockId) {
+        return face | (ao << 3) | (blockId << 8) | TILE_BITS[blockId][face];
+    }
+}
@@ -0,0 +1,64 @@
+package com.tsian.render;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * 共享四边形索引缓冲区 - 所有网格共用的预生成索引
+ *
+ * 每个四边形的索引都是 (0,1,2, 2,3,0) + 4k，因此只需生成一次，
+ * 各网格的VAO绑定同一个EBO，重建网格时不再生成和上传索引。
+ * 容量在创建时按一个分段网格的最大四边形数确定，不超过16384个四边形（65536个顶点），使用16位索引。
+ */
+public class QuadIndexBuffer {
+    
+    private static final int MAX_SHORT_QUADS = 65536 / 4; // 16位索引可寻址的四边形数
+    
+    private final int eboId;
+    
+    public QuadIndexBuffer(int quadCapacity) {
+        if (quadCapacity > MAX_SHORT_QUADS) {
+            throw new IllegalArgumentException("Quad capacity " + quadCapacity + " exceeds 16-bit indices");
+        }
+        this.eboId = glGenBuffers();
+        
+        ShortBuffer indices = MemoryUtil.memAllocShort(quadCapacity * 6);
+        for (int quad = 0; quad < quadCapacity; quad++) {
+            int vertex = quad * 4;
+            indices.put((short) vertex).put((short) (vertex + 1)).put((short) (vertex + 2));
+            indices.put((short) (vertex + 2)).put((short) (vertex + 3)).put((short) vertex);
+        }
+        indices.flip();
+        
+        glBindVertexArray(0); // 避免改变当前VAO的元素缓冲区绑定
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboId);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        MemoryUtil.memFree(indices);
+        
+        System.out.println("Quad index buffer: " + quadCapacity + " quads, 16-bit");
+    }
+    
+    /**
+     * 绑定到当前VAO（在setup VAO时调用）
+     */
+    public void bind() {
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboId);
+    }
+    
+    /**
+     * 绘制时使用的索引类型
+     */
+    public int getIndexType() {
+        return GL_UNSIGNED_SHORT;
+    }
+    
+    public void cleanup() {
+        glDeleteBuffers(eboId);
+    }
+}
@@ -85,6 +85,13 @@ public class RenderManager {
         System.out.println("UI renderer initialized");
     }
     
+    /**
+     * 开始本帧的软件遮挡光栅化（在世界更新之后、render之前调用，使用上一帧的矩阵）
+     */
+    public void startOcclusionRaster() {
+        simpleRenderer.startOcclusionRaster();
+    }
+    
     /**
      * 渲染一帧
      */
@@ -100,13 +107,22 @@ public class RenderManager {
         setupBreakingEffect(camera);
         
         // 传递矩阵uniform
-        uploadMatrices(camera, windowWidth, windowHeight);
+        float[] viewMatrix = camera.getViewMatrix();
+        float[] projectionMatrix = Camera.perspective(
+            config.render.fov,
+            (float)windowWidth / (float)windowHeight,
+            config.render.nearPlane,
+            config.render.farPlane
+        );
+        uploadMatrices(viewMatrix, projectionMatrix);
+        simpleRenderer.updateFrustum(projectionMatrix, viewMatrix);
         
         // 设置光照方向uniform (固定方向光)
         setupLighting();
         
-        // 简化渲染 - 传递摄像头位置用于透明方块排序
-        simpleRenderer.render(textureId, camera.getX(), camera.getY(), camera.getZ());
+        // 简化渲染 - 传递摄像头位置用于透明方块排序，视线方向用于网格构建任务的优先级
+        float[] front = camera.getFrontVector();
+        simpleRenderer.render(shaderProgram, textureId, camera.getX(), camera.getY(), camera.getZ(), front[0], front[2]);
         
         // 渲染UI元素（十字标记）
         uiRenderer.renderCrosshair(windowWidth, windowHeight);
@@ -115,16 +131,9 @@ public class RenderManager {
     /**
      * 传递矩阵uniform
      */
-    private void uploadMatrices(Camera camera, int windowWidth, int windowHeight) {
+    private void uploadMatrices(float[] viewMatrix, float[] projectionMatrix) {
         // 创建变换矩阵
         float[] modelMatrix = createModelMatrix();
-        float[] viewMatrix = camera.getViewMatrix();
-        float[] projectionMatrix = Camera.perspective(
-            config.render.fov,
-            (float)windowWidth / (float)windowHeight,
-            config.render.nearPlane,
-            config.render.farPlane
-        );
         
         // 传递矩阵uniform
         shaderManager.uploadMatrix4f(shaderProgram, "model", modelMatrix);
@@ -183,6 +192,10 @@ public class RenderManager {
         // 设置环境光遮蔽强度
         int aoStrengthLocation = glGetUniformLocation(shaderProgram, "aoStrength");
         glUniform1f(aoStrengthLocation, config.render.aoStrength);  // AO强度
+        
+        // 快速树叶模式
+        int fastLeavesLocation = glGetUniformLocation(shaderProgram, "fastLeaves");
+        glUniform1i(fastLeavesLocation, config.render.fastLeaves ? 1 : 0);
     }
     
     /**
@@ -230,12 +243,10 @@ public class RenderManager {
     }
     
     /**
-     * 重新构建网格（立即刷新GPU状态）
+     * 提交变化分段的网格重建（在后台线程构建，之后的帧中上传，不阻塞当前帧）
      */
     public void rebuildMesh(World world) {
         simpleRenderer.buildMeshFromWorld(world);
-        // 强制完成所有GPU操作，确保新网格立即生效
-        glFinish();
     }
     
     // Getter方法
@@ -0,0 +1,108 @@
+package com.tsian.render;
+
+/**
+ * 渲染统计 - 每帧的分段剔除计数和软件遮挡光栅化耗时，开启输出时每秒输出一次平均值
+ *
+ * 计数只在渲染线程中更新，本帧计数可以通过getter读取（如调试界面）。
+ */
+public class RenderStats {
+    
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+    
+    private final boolean report; // 是否每秒输出到控制台
+    
+    // 本帧计数
+    private int sectionsTested;
+    private int frustumCulled;
+    private int occlusionCulled;
+    private int rasterCulled;
+    private long rasterNanos;
+    private int sectionsDrawn;
+    private int opaqueQuadsDrawn;
+    private int backFacingQuadsSkipped;
+    
+    // 本统计周期的累计
+    private long totalTested;
+    private long totalFrustumCulled;
+    private long totalOcclusionCulled;
+    private long totalRasterCulled;
+    private long totalRasterNanos;
+    private long totalDrawn;
+    private long totalQuadsDrawn;
+    private long totalQuadsSkipped;
+    private int frames;
+    private long periodStart = System.nanoTime();
+    
+    public RenderStats(boolean report) {
+        this.report = report;
+    }
+    
+    /**
+     * 开始新的一帧（清空本帧计数）
+     */
+    public void beginFrame() {
+        sectionsTested = 0;
+        frustumCulled = 0;
+        occlusionCulled = 0;
+        rasterCulled = 0;
+        rasterNanos = 0;
+        sectionsDrawn = 0;
+        opaqueQuadsDrawn = 0;
+        backFacingQuadsSkipped = 0;
+    }
+    
+    public void sectionTested() { sectionsTested++; }
+    public void sectionFrustumCulled() { frustumCulled++; }
+    public void sectionOcclusionCulled() { occlusionCulled++; }
+    public void sectionRasterCulled() { rasterCulled++; }
+    public void rasterTime(long nanos) { rasterNanos += nanos; }
+    public void sectionsDrawn(int count) { sectionsDrawn += count; }
+    public void opaqueQuads(int drawn, int skipped) { opaqueQuadsDrawn += drawn; backFacingQuadsSkipped += skipped; }
+    
+    /**
+     * 结束本帧，开启输出时累计到统计周期并在周期结束时输出
+     */
+    public void endFrame() {
+        if (!report) {
+            return;
+        }
+        totalTested += sectionsTested;
+        totalFrustumCulled += frustumCulled;
+        totalOcclusionCulled += occlusionCulled;
+        totalRasterCulled += rasterCulled;
+        totalRasterNanos += rasterNanos;
+        totalDrawn += sectionsDrawn;
+        totalQuadsDrawn += opaqueQuadsDrawn;
+        totalQuadsSkipped += backFacingQuadsSkipped;
+        frames++;
+        
+        long now = System.nanoTime();
+        if (now - periodStart >= REPORT_INTERVAL_NANOS) {
+            System.out.println(String.format("Sections per frame: tested %.0f, frustum culled %.0f, occlusion culled %.0f, raster culled %.0f, drawn %.0f; occlusion raster %.2f ms (%d frames)",
+                    (double) totalTested / frames, (double) totalFrustumCulled / frames,
+                    (double) totalOcclusionCulled / frames, (double) totalRasterCulled / frames,
+                    (double) totalDrawn / frames, totalRasterNanos / 1_000_000.0 / frames, frames));
+            System.out.println(String.format("Opaque quads per frame: drawn %.0f, back-facing skipped %.0f",
+                    (double) totalQuadsDrawn / frames, (double) totalQuadsSkipped / frames));
+            totalTested = 0;
+            totalFrustumCulled = 0;
+            totalOcclusionCulled = 0;
+            totalRasterCulled = 0;
+            totalRasterNanos = 0;
+            totalDrawn = 0;
+            totalQuadsDrawn = 0;
+            totalQuadsSkipped = 0;
+            frames = 0;
+            periodStart = now;
+        }
+    }
+    
+    public int getSectionsTested() { return sectionsTested; }
+    public int getFrustumCulled() { return frustumCulled; }
+    public int getOcclusionCulled() { return occlusionCulled; }
+    public int getRasterCulled() { return rasterCulled; }
+    public long getRasterNanos() { return rasterNanos; }
+    public int getSectionsDrawn() { return sectionsDrawn; }
+    public int getOpaqueQuadsDrawn() { return opaqueQuadsDrawn; }
+    public int getBackFacingQuadsSkipped() { return backFacingQuadsSkipped; }
+}
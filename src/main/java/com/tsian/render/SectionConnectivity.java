@@ -0,0 +1,172 @@
+package com.tsian.render;
+
+import com.tsian.world.Block;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.SectionSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * 分段连通性 - 计算分段的六个面之间是否能通过不遮挡视线的空间互相看到
+ *
+ * 对分段内所有不遮挡视线的方块（空气、水、树叶）做洪水填充，每个连通区域接触到的面两两连通。
+ * 结果是一个long，第 (a * 6 + b) 位表示面a和面b连通（对称），面方向与面序号一致
+ * （0=+Z 1=-Z 2=-X 3=+X 4=+Y 5=-Y）。渲染时从摄像头所在分段出发沿连通的面做广度优先搜索，
+ * 到达不了的分段被地形挡住，不需要绘制。
+ *
+ * 同时提取粗略的遮挡体（从分段底部向上连续实心的方块柱合并成的长方体），供软件遮挡光栅化使用。
+ *
+ * 实例持有临时数组，只能在一个线程中使用。
+ */
+public class SectionConnectivity {
+    
+    public static final long ALL_CONNECTED = (1L << 36) - 1;
+    
+    private static final int SIZE = ChunkSection.SIZE;
+    private static final int VOLUME = ChunkSection.VOLUME;
+    
+    // 按方块类型ID查询是否遮挡视线（实心且不是树叶）
+    private static final boolean[] OCCLUDING = new boolean[256];
+    
+    static {
+        for (Block.BlockType type : Block.BlockType.values()) {
+            OCCLUDING[type.getId()] = type.isSolid() && type != Block.BlockType.LEAVES;
+        }
+    }
+    
+    private static final int TILE = 4; // 遮挡体按4x4的方块柱为单位提取
+    private static final int TILES = SIZE / TILE;
+    private static final int MIN_OCCLUDER_HEIGHT = 4; // 更薄的遮挡体几乎挡不住什么，不输出
+    private static final int[] NO_OCCLUDERS = new int[0];
+    
+    private final boolean[] filled = new boolean[VOLUME]; // 遮挡视线或已填充，索引 (y * 16 + z) * 16 + x
+    private final int[] queue = new int[VOLUME];
+    
+    /**
+     * 计算分段六个面的连通性
+     */
+    public long compute(SectionSnapshot snapshot) {
+        int openCount = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int z = 0; z < SIZE; z++) {
+                for (int x = 0; x < SIZE; x++) {
+                    boolean occluding = OCCLUDING[snapshot.getBlockId(x, y, z) & 0xFF];
+                    filled[(y * SIZE + z) * SIZE + x] = occluding;
+                    if (!occluding) {
+                        openCount++;
+                    }
+                }
+            }
+        }
+        if (openCount == VOLUME) {
+            return ALL_CONNECTED;
+        }
+        
+        long connectivity = 0;
+        for (int start = 0; start < VOLUME && openCount > 0; start++) {
+            if (filled[start]) {
+                continue;
+            }
+            
+            // 填充一个连通区域并记录它接触到的面
+            int faces = 0;
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            filled[start] = true;
+            while (head < tail) {
+                int index = queue[head++];
+                int x = index & (SIZE - 1);
+                int z = (index >> 4) & (SIZE - 1);
+                int y = index >> 8;
+                
+                if (z == SIZE - 1) faces |= 1; else tail = visit(index + SIZE, tail);
+                if (z == 0) faces |= 1 << 1; else tail = visit(index - SIZE, tail);
+                if (x == 0) faces |= 1 << 2; else tail = visit(index - 1, tail);
+                if (x == SIZE - 1) faces |= 1 << 3; else tail = visit(index + 1, tail);
+                if (y == SIZE - 1) faces |= 1 << 4; else tail = visit(index + SIZE * SIZE, tail);
+                if (y == 0) faces |= 1 << 5; else tail = visit(index - SIZE * SIZE, tail);
+            }
+            openCount -= tail;
+            
+            for (int a = 0; a < 6; a++) {
+                if ((faces & (1 << a)) != 0) {
+                    for (int b = 0; b < 6; b++) {
+                        if ((faces & (1 << b)) != 0) {
+                            connectivity |= 1L << (a * 6 + b);
+                        }
+                    }
+                }
+            }
+        }
+        return connectivity;
+    }
+    
+    private int visit(int index, int tail) {
+        if (!filled[index]) {
+            filled[index] = true;
+            queue[tail++] = index;
+        }
+        return tail;
+    }
+    
+    /**
+     * 提取分段的遮挡体
+     *
+     * 每个4x4的方块柱取从底部向上连续遮挡视线的最小高度，同一行中高度相同的相邻方块柱合并；
+     * 完全实心的分段只输出一个长方体。
+     * @return 每个遮挡体6个整数（minX, minY, minZ, maxX, maxY, maxZ，相对分段原点），没有时为空数组
+     */
+    public int[] computeOccluders(SectionSnapshot snapshot) {
+        int[] heights = new int[TILES * TILES];
+        boolean solid = true;
+        for (int tileZ = 0; tileZ < TILES; tileZ++) {
+            for (int tileX = 0; tileX < TILES; tileX++) {
+                int height = SIZE;
+                for (int z = tileZ * TILE; z < tileZ * TILE + TILE; z++) {
+                    for (int x = tileX * TILE; x < tileX * TILE + TILE; x++) {
+                        int y = 0;
+                        while (y < height && OCCLUDING[snapshot.getBlockId(x, y, z) & 0xFF]) {
+                            y++;
+                        }
+                        height = y;
+                    }
+                }
+                heights[tileZ * TILES + tileX] = height;
+                solid &= height == SIZE;
+            }
+        }
+        if (solid) {
+            return new int[] {0, 0, 0, SIZE, SIZE, SIZE};
+        }
+        
+        int[] boxes = new int[TILES * TILES * 6];
+        int count = 0;
+        for (int tileZ = 0; tileZ < TILES; tileZ++) {
+            int tileX = 0;
+            while (tileX < TILES) {
+                int height = heights[tileZ * TILES + tileX];
+                int end = tileX + 1;
+                while (end < TILES && heights[tileZ * TILES + end] == height) {
+                    end++;
+                }
+                if (height >= MIN_OCCLUDER_HEIGHT) {
+                    boxes[count++] = tileX * TILE;
+                    boxes[count++] = 0;
+                    boxes[count++] = tileZ * TILE;
+                    boxes[count++] = end * TILE;
+                    boxes[count++] = height;
+                    boxes[count++] = tileZ * TILE + TILE;
+                }
+                tileX = end;
+            }
+        }
+        return count == 0 ? NO_OCCLUDERS : Arrays.copyOf(boxes, count);
+    }
+    
+    /**
+     * 面a和面b是否连通
+     */
+    public static boolean isConnected(long connectivity, int faceA, int faceB) {
+        return (connectivity & (1L << (faceA * 6 + faceB))) != 0;
+    }
+}
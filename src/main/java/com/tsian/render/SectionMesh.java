@@ -0,0 +1,262 @@
+package com.tsian.render;
+
+import com.tsian.world.ChunkSection;
+import org.lwjgl.PointerBuffer;
+
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL14.glMultiDrawElements;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * 分段网格 - 一个区块分段的GPU资源
+ *
+ * 负责：
+ * - 持有分段不透明几何的VAO/VBO，可以独立重建和上传（顶点位置相对分段原点，索引使用共享的QuadIndexBuffer）
+ * - 不透明四边形按面方向分成6段连续范围，绘制时跳过整段背向摄像头的方向
+ * - 镂空几何（树叶）与不透明几何在同一个VBO中，位于不透明四边形之后，用共享索引的偏移绘制
+ * - 持有分段透明几何的VAO/VBO/EBO（分段第一次有透明面时创建），顶点只在重建时上传，
+ *   排序时只重写本分段的索引；加权混合OIT模式下不排序，VAO直接使用共享索引
+ */
+public class SectionMesh {
+    
+    private final int vaoId;
+    private final int vboId;
+    private int indexCount; // 不透明几何的索引数
+    private final int[] faceIndexStarts = new int[7]; // 不透明几何中面方向d的索引范围为 [starts[d], starts[d + 1])
+    private int cutoutIndexCount; // 镂空几何的索引数
+    private int originX, originY, originZ; // 分段原点（世界坐标）
+    private boolean visible = true; // 本帧是否通过剔除
+    private long connectivity = SectionConnectivity.ALL_CONNECTED; // 面之间的连通性（格式见SectionConnectivity）
+    private int[] occluderBoxes = new int[0]; // 遮挡体（相对分段原点，每个6个整数）
+    
+    // 透明几何：面k的四个顶点为4k到4k+3，transparentPositions保存面k的世界坐标用于排序
+    private int transparentVaoId;
+    private int transparentVboId;
+    private int transparentEboId;
+    private int transparentIndexCount;
+    private int[] transparentPositions = new int[0];
+    private boolean transparentSortNeeded; // 顶点重新上传后还没有排序
+    
+    public SectionMesh(int vaoId, int vboId) {
+        this.vaoId = vaoId;
+        this.vboId = vboId;
+    }
+    
+    /**
+     * 上传不透明和镂空几何（缓冲区已flip，镂空四边形位于不透明四边形之后）
+     * @param faceQuadCounts 不透明层每个面方向的四边形数（按面方向顺序连续存放）
+     */
+    public void upload(int originX, int originY, int originZ, IntBuffer vertexBuffer, int[] faceQuadCounts,
+                       int cutoutQuadCount) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        for (int face = 0; face < 6; face++) {
+            faceIndexStarts[face + 1] = faceIndexStarts[face] + faceQuadCounts[face] * 6;
+        }
+        indexCount = faceIndexStarts[6];
+        cutoutIndexCount = cutoutQuadCount * 6;
+        
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STATIC_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+    
+    /**
+     * 设置透明几何的GPU资源（VAO已绑定VBO和EBO）
+     */
+    public void setTransparentBuffers(int vaoId, int vboId, int eboId) {
+        transparentVaoId = vaoId;
+        transparentVboId = vboId;
+        transparentEboId = eboId;
+    }
+    
+    public boolean hasTransparentBuffers() {
+        return transparentVaoId != 0;
+    }
+    
+    /**
+     * 上传透明几何（缓冲区已flip，没有透明面时为null），绘制前需要排序
+     * @param positions 每个面的世界坐标（数组由构建线程创建，之后不再修改）
+     */
+    public void uploadTransparent(int[] positions, IntBuffer vertexBuffer) {
+        transparentPositions = positions;
+        transparentIndexCount = 0;
+        transparentSortNeeded = positions.length > 0;
+        if (vertexBuffer != null) {
+            glBindBuffer(GL_ARRAY_BUFFER, transparentVboId);
+            glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STATIC_DRAW);
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+    }
+    
+    /**
+     * 按距离摄像头从远到近重写透明面的索引（顶点数据不变）
+     * @param keys 排序键临时数组，order 面序号临时数组，长度至少为透明面数
+     * @param indexBuffer 索引临时缓冲区，容量至少为透明面数 * 6
+     */
+    public void sortTransparent(float cameraX, float cameraY, float cameraZ, DepthSorter sorter,
+                                int[] keys, int[] order, IntBuffer indexBuffer) {
+        int faceCount = getTransparentFaceCount();
+        for (int i = 0; i < faceCount; i++) {
+            float dx = transparentPositions[i * 3] - cameraX;
+            float dy = transparentPositions[i * 3 + 1] - cameraY;
+            float dz = transparentPositions[i * 3 + 2] - cameraZ;
+            keys[i] = DepthSorter.farToNearKey(dx * dx + dy * dy + dz * dz);
+            order[i] = i;
+        }
+        sorter.sort(keys, order, faceCount);
+        
+        indexBuffer.clear();
+        for (int i = 0; i < faceCount; i++) {
+            int vertex = order[i] * 4;
+            indexBuffer.put(vertex).put(vertex + 1).put(vertex + 2);
+            indexBuffer.put(vertex + 2).put(vertex + 3).put(vertex);
+        }
+        indexBuffer.flip();
+        
+        glBindVertexArray(0); // 避免改变当前VAO的元素缓冲区绑定
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, transparentEboId);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_DYNAMIC_DRAW);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+        transparentIndexCount = faceCount * 6;
+        transparentSortNeeded = false;
+    }
+    
+    public boolean isTransparentSortNeeded() {
+        return transparentSortNeeded;
+    }
+    
+    /**
+     * 分段中可能朝向摄像头的面方向（按位，第d位为面方向d）
+     *
+     * 面方向d的面所在平面都在分段包围盒内，摄像头在包围盒对应一侧之外时这个方向的面全部背向摄像头，
+     * 例如摄像头高于分段顶部时所有-Y面都看不到。摄像头在包围盒内时相对的两个方向都保留。
+     */
+    public static int frontFaceMask(int originX, int originY, int originZ,
+                                    float cameraX, float cameraY, float cameraZ) {
+        int size = ChunkSection.SIZE;
+        int mask = 0;
+        if (cameraZ > originZ) mask |= 1;             // +Z
+        if (cameraZ < originZ + size) mask |= 1 << 1; // -Z
+        if (cameraX < originX + size) mask |= 1 << 2; // -X
+        if (cameraX > originX) mask |= 1 << 3;        // +X
+        if (cameraY > originY) mask |= 1 << 4;        // +Y
+        if (cameraY < originY + size) mask |= 1 << 5; // -Y
+        return mask;
+    }
+    
+    /**
+     * 绘制不透明几何中faceMask选中的面方向（相邻的方向合并成一段，一次多重绘制提交）
+     * @param originLocation 着色器中chunkOrigin的uniform位置
+     * @param indexType 共享索引缓冲区的索引类型
+     * @param counts 暂存每段的索引数（容量至少为3）
+     * @param offsets 暂存每段的索引字节偏移（容量至少为3）
+     * @return 绘制的四边形数
+     */
+    public int drawOpaque(int originLocation, int indexType, int faceMask, IntBuffer counts, PointerBuffer offsets) {
+        if (indexCount == 0) {
+            return 0;
+        }
+        
+        long indexBytes = indexType == GL_UNSIGNED_SHORT ? Short.BYTES : Integer.BYTES;
+        int drawn = 0;
+        counts.clear();
+        offsets.clear();
+        int face = 0;
+        while (face < 6) {
+            if ((faceMask & (1 << face)) == 0) {
+                face++;
+                continue;
+            }
+            int end = face + 1;
+            while (end < 6 && (faceMask & (1 << end)) != 0) {
+                end++;
+            }
+            int count = faceIndexStarts[end] - faceIndexStarts[face];
+            if (count > 0) {
+                counts.put(count);
+                offsets.put(faceIndexStarts[face] * indexBytes);
+                drawn += count;
+            }
+            face = end;
+        }
+        counts.flip();
+        offsets.flip();
+        
+        if (drawn > 0) {
+            glUniform3f(originLocation, originX, originY, originZ);
+            glBindVertexArray(vaoId);
+            glMultiDrawElements(GL_TRIANGLES, counts, indexType, offsets);
+        }
+        return drawn / 6;
+    }
+    
+    /**
+     * 绘制镂空几何（共享索引从不透明四边形之后开始，每个四边形的索引都引用自己的四个顶点；
+     * 不透明和镂空四边形合计不超过GreedyMesher.MAX_QUADS_PER_SECTION，不会超出共享索引）
+     * @param indexType 共享索引缓冲区的索引类型
+     */
+    public void drawCutout(int originLocation, int indexType) {
+        if (cutoutIndexCount > 0) {
+            long indexBytes = indexType == GL_UNSIGNED_SHORT ? Short.BYTES : Integer.BYTES;
+            glUniform3f(originLocation, originX, originY, originZ);
+            glBindVertexArray(vaoId);
+            glDrawElements(GL_TRIANGLES, cutoutIndexCount, indexType, indexCount * indexBytes);
+        }
+    }
+    
+    /**
+     * 绘制透明几何（按排序后的索引）
+     */
+    public void drawTransparent(int originLocation) {
+        if (transparentIndexCount > 0) {
+            glUniform3f(originLocation, originX, originY, originZ);
+            glBindVertexArray(transparentVaoId);
+            glDrawElements(GL_TRIANGLES, transparentIndexCount, GL_UNSIGNED_INT, 0);
+        }
+    }
+    
+    /**
+     * 不排序绘制透明几何（加权混合OIT模式，VAO绑定的是共享索引）
+     * @param indexType 共享索引缓冲区的索引类型
+     */
+    public void drawTransparentUnsorted(int originLocation, int indexType) {
+        int count = getTransparentFaceCount() * 6;
+        if (count > 0) {
+            glUniform3f(originLocation, originX, originY, originZ);
+            glBindVertexArray(transparentVaoId);
+            glDrawElements(GL_TRIANGLES, count, indexType, 0);
+        }
+    }
+    
+    /**
+     * 释放GPU资源
+     */
+    public void cleanup() {
+        glDeleteVertexArrays(vaoId);
+        glDeleteBuffers(vboId);
+        if (transparentVaoId != 0) {
+            glDeleteVertexArrays(transparentVaoId);
+            glDeleteBuffers(transparentVboId);
+            glDeleteBuffers(transparentEboId);
+        }
+    }
+    
+    public int getIndexCount() { return indexCount; }
+    public int getFaceIndexCount(int face) { return faceIndexStarts[face + 1] - faceIndexStarts[face]; }
+    public int getCutoutIndexCount() { return cutoutIndexCount; }
+    public int getTransparentFaceCount() { return transparentPositions.length / 3; }
+    public boolean isVisible() { return visible; }
+    public void setVisible(boolean visible) { this.visible = visible; }
+    public long getConnectivity() { return connectivity; }
+    public void setConnectivity(long connectivity) { this.connectivity = connectivity; }
+    public int[] getOccluderBoxes() { return occluderBoxes; }
+    public void setOccluderBoxes(int[] occluderBoxes) { this.occluderBoxes = occluderBoxes; }
+    public int getOriginX() { return originX; }
+    public int getOriginY() { return originY; }
+    public int getOriginZ() { return originZ; }
+}
@@ -0,0 +1,152 @@
+package com.tsian.render;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 分段可见性图 - 从摄像头所在分段出发，沿分段面之间的连通性做广度优先搜索
+ *
+ * 分段按坐标放入覆盖所有网格（外加一圈空气）的三维数组，没有网格的位置视为空气（六个面全部连通）。
+ * 搜索规则（与Minecraft的高级剔除相同）：
+ * - 从面e进入分段后，只能从与e连通的面d离开
+ * - 不能朝已经走过的方向的反方向移动（只向远离摄像头的方向扩展）
+ * - 视锥外的分段不再扩展
+ * 到达的分段可见，其余被地形挡住。摄像头在数组范围外时从最近的边界分段开始。
+ *
+ * 只在渲染线程中使用，每帧搜索不分配对象。
+ */
+public class SectionVisibilityGraph {
+    
+    private static final int SIZE = 16; // 分段边长
+    
+    // 面方向对应的分段偏移（0=+Z 1=-Z 2=-X 3=+X 4=+Y 5=-Y），反方向为 d ^ 1
+    private static final int[] DIR_X = {0, 0, -1, 1, 0, 0};
+    private static final int[] DIR_Y = {0, 0, 0, 0, 1, -1};
+    private static final int[] DIR_Z = {1, -1, 0, 0, 0, 0};
+    
+    private SectionMesh[] grid = new SectionMesh[0];
+    private int minX, minY, minZ; // 数组第0格的分段坐标
+    private int sizeX, sizeY, sizeZ;
+    
+    private int[] visitedFrame = new int[0];
+    private int[] queue = new int[0]; // 分段序号 << 10 | (进入面 + 1) << 6 | 走过的方向
+    private int frame;
+    
+    /**
+     * 按当前所有分段网格重建数组（有新的分段网格时调用）
+     */
+    public void rebuild(Collection<SectionMesh> meshes) {
+        if (meshes.isEmpty()) {
+            sizeX = sizeY = sizeZ = 0;
+            return;
+        }
+        
+        int lowX = Integer.MAX_VALUE, lowY = Integer.MAX_VALUE, lowZ = Integer.MAX_VALUE;
+        int highX = Integer.MIN_VALUE, highY = Integer.MIN_VALUE, highZ = Integer.MIN_VALUE;
+        for (SectionMesh mesh : meshes) {
+            int x = Math.floorDiv(mesh.getOriginX(), SIZE);
+            int y = Math.floorDiv(mesh.getOriginY(), SIZE);
+            int z = Math.floorDiv(mesh.getOriginZ(), SIZE);
+            lowX = Math.min(lowX, x);
+            lowY = Math.min(lowY, y);
+            lowZ = Math.min(lowZ, z);
+            highX = Math.max(highX, x);
+            highY = Math.max(highY, y);
+            highZ = Math.max(highZ, z);
+        }
+        
+        // 外加一圈空气，绕过地形边缘的路径也能被搜索到
+        minX = lowX - 1;
+        minY = lowY - 1;
+        minZ = lowZ - 1;
+        sizeX = highX - lowX + 3;
+        sizeY = highY - lowY + 3;
+        sizeZ = highZ - lowZ + 3;
+        int volume = sizeX * sizeY * sizeZ;
+        if (grid.length < volume) {
+            grid = new SectionMesh[volume];
+            visitedFrame = new int[volume];
+            queue = new int[volume];
+            frame = 0;
+        } else {
+            Arrays.fill(grid, null);
+        }
+        
+        for (SectionMesh mesh : meshes) {
+            int x = Math.floorDiv(mesh.getOriginX(), SIZE) - minX;
+            int y = Math.floorDiv(mesh.getOriginY(), SIZE) - minY;
+            int z = Math.floorDiv(mesh.getOriginZ(), SIZE) - minZ;
+            grid[(y * sizeZ + z) * sizeX + x] = mesh;
+        }
+    }
+    
+    /**
+     * 从摄像头所在分段搜索可见分段，把到达的分段网格标记为可见并加入visible
+     */
+    public void traverse(float cameraX, float cameraY, float cameraZ, Frustum frustum, List<SectionMesh> visible) {
+        if (sizeX == 0) {
+            return;
+        }
+        frame++;
+        
+        int startX = clamp(Math.floorDiv((int) Math.floor(cameraX), SIZE) - minX, sizeX);
+        int startY = clamp(Math.floorDiv((int) Math.floor(cameraY), SIZE) - minY, sizeY);
+        int startZ = clamp(Math.floorDiv((int) Math.floor(cameraZ), SIZE) - minZ, sizeZ);
+        int start = (startY * sizeZ + startZ) * sizeX + startX;
+        
+        int head = 0, tail = 0;
+        queue[tail++] = start << 10; // 起点没有进入面，所有方向都可以走
+        visitedFrame[start] = frame;
+        
+        while (head < tail) {
+            int entry = queue[head++];
+            int cell = entry >>> 10;
+            int entryFace = ((entry >> 6) & 7) - 1;
+            int directions = entry & 0x3F;
+            
+            SectionMesh mesh = grid[cell];
+            long connectivity = SectionConnectivity.ALL_CONNECTED;
+            if (mesh != null) {
+                mesh.setVisible(true);
+                visible.add(mesh);
+                connectivity = mesh.getConnectivity();
+            }
+            
+            int x = cell % sizeX;
+            int z = (cell / sizeX) % sizeZ;
+            int y = cell / (sizeX * sizeZ);
+            for (int d = 0; d < 6; d++) {
+                if ((directions & (1 << (d ^ 1))) != 0) {
+                    continue; // 不往回走
+                }
+                if (entryFace >= 0 && !SectionConnectivity.isConnected(connectivity, entryFace, d)) {
+                    continue;
+                }
+                int nx = x + DIR_X[d];
+                int ny = y + DIR_Y[d];
+                int nz = z + DIR_Z[d];
+                if (nx < 0 || ny < 0 || nz < 0 || nx >= sizeX || ny >= sizeY || nz >= sizeZ) {
+                    continue;
+                }
+                int neighbor = (ny * sizeZ + nz) * sizeX + nx;
+                if (visitedFrame[neighbor] == frame) {
+                    continue;
+                }
+                visitedFrame[neighbor] = frame;
+                
+                float boxX = (minX + nx) * SIZE;
+                float boxY = (minY + ny) * SIZE;
+                float boxZ = (minZ + nz) * SIZE;
+                if (!frustum.intersectsBox(boxX, boxY, boxZ, boxX + SIZE, boxY + SIZE, boxZ + SIZE)) {
+                    continue;
+                }
+                queue[tail++] = (neighbor << 10) | ((d ^ 1) + 1) << 6 | directions | (1 << d);
+            }
+        }
+    }
+    
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
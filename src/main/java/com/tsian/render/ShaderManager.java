@@ -27,6 +27,16 @@ public class ShaderManager {
         return shaderProgram;
     }
     
+    /**
+     * 创建加权混合OIT的合成着色器程序（全屏三角形）
+     */
+    public int createOitCompositeShaderProgram() {
+        String vertexShaderSource = loadShaderSource("shaders/oit_composite.vert");
+        String fragmentShaderSource = loadShaderSource("shaders/oit_composite.frag");
+        
+        return createShaderProgram(vertexShaderSource, fragmentShaderSource);
+    }
+    
     /**
      * 从资源文件加载着色器源码
      */
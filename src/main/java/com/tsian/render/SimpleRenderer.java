@@ -2,46 +2,75 @@ package com.tsian.render;
 
 import com.tsian.config.GameConfig;
 import com.tsian.world.World;
-import com.tsian.world.Block;
+import com.tsian.world.Chunk;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.SectionSnapshot;
+import org.lwjgl.PointerBuffer;
 import org.lwjgl.system.MemoryUtil;
 
-import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
 import static org.lwjgl.opengl.GL30.*;
 
 /**
- * 改进的渲染器 - 支持透明方块的深度排序
+ * 改进的渲染器 - 按区块分段管理网格，支持透明方块的深度排序
+ *
+ * 每个分段有自己的不透明网格，只有可见面变化的分段会重建；网格在后台线程中生成，
+ * 渲染线程只负责上传。透明几何也按分段保存，分段之间从远到近绘制，
+ * 摄像头跨过方块边界时只重写附近分段的透明面索引。
  */
 public class SimpleRenderer {
     
-    private int FLOATS_PER_VERTEX; // x,y,z,u,v,blockType,nx,ny,nz,vertexCoordX,vertexCoordY,aoOcclusion
+    // 分段网格（不透明几何）
+    private final Map<ChunkSection, SectionMesh> sectionMeshes = new HashMap<>();
     
-    // 渲染资源 - 不透明方块
-    private int opaqueVaoId;
-    private int opaqueVboId;
-    private int opaqueEboId;
-    private int opaqueVertexCount;
+    // 所有网格共用的四边形索引
+    private final QuadIndexBuffer quadIndices;
     
-    // 渲染资源 - 透明方块
-    private int transparentVaoId;
-    private int transparentVboId;
-    private int transparentEboId;
-    private int transparentVertexCount;
+    // 网格暂存缓冲区池（工作线程的顶点结果和透明面索引共用）
+    private final NativeBufferPool bufferPool = new NativeBufferPool();
     
-    // 渲染数据
-    private FloatBuffer opaqueVertexBuffer;
-    private IntBuffer opaqueIndexBuffer;
-    private FloatBuffer transparentVertexBuffer;
-    private IntBuffer transparentIndexBuffer;
+    // 后台网格构建
+    private final MeshBuilder meshBuilder;
+    
+    // 加权混合OIT（配置为weighted_blended时使用，否则为null，半透明面按距离排序）
+    private final WeightedBlendedOit oit;
+    
+    // 视锥剔除：本帧可见的分段和剔除统计
+    private final Frustum frustum = new Frustum();
+    private final List<SectionMesh> visibleSections = new ArrayList<>();
+    private final RenderStats stats;
+    
+    // 按面方向分段绘制不透明几何时每段的索引数和偏移（每个分段最多3段）
+    private final IntBuffer drawCounts = MemoryUtil.memAllocInt(3);
+    private final PointerBuffer drawOffsets = MemoryUtil.memAllocPointer(3);
     
-    // 世界引用（用于AO计算）
-    private World world;
+    // 连通性遮挡剔除（配置关闭时为null，只做视锥剔除）
+    private final SectionVisibilityGraph visibilityGraph;
+    private boolean visibilityGraphDirty; // 有新的分段网格，需要重建
+    
+    // 软件遮挡光栅化（配置关闭时为null）：每帧在世界更新后用上一帧的矩阵开始光栅化，与网格上传同时进行，剔除分段前等待完成
+    private final OcclusionRasterizer occlusionRasterizer;
+    private final ExecutorService rasterExecutor;
+    private Future<?> rasterTask; // 本帧的光栅化任务，剔除后为null
+    private float[] occluderBoxes = new float[6 * 256]; // 本帧的遮挡体（世界坐标），只在光栅化任务之间修改
+    private final float[] rasterProjection = new float[16]; // 上一帧的投影矩阵
+    private final float[] rasterView = new float[16]; // 上一帧的视图矩阵
+    private final Frustum rasterFrustum = new Frustum(); // 上一帧的视锥，用于收集遮挡体
+    private boolean hasRasterMatrices; // 已经渲染过至少一帧
+    private long rasterNanos; // 本帧光栅化耗时（工作线程写入，等待任务完成后读取）
     
     public SimpleRenderer() {
         this(new GameConfig());
@@ -49,538 +78,474 @@ public class SimpleRenderer {
     
     public SimpleRenderer(GameConfig config) {
         // 使用配置中的参数
-        this.FLOATS_PER_VERTEX = config.render.floatsPerVertex;
-        
-        // 创建不透明方块的OpenGL资源
-        opaqueVaoId = glGenVertexArrays();
-        opaqueVboId = glGenBuffers();
-        opaqueEboId = glGenBuffers();
-        
-        // 创建透明方块的OpenGL资源
-        transparentVaoId = glGenVertexArrays();
-        transparentVboId = glGenBuffers();
-        transparentEboId = glGenBuffers();
-        
-        setupVertexArrayObjects();
-    }
-    
-    /**
-     * 设置VAO属性
-     */
-    private void setupVertexArrayObjects() {
-        setupSingleVAO(opaqueVaoId, opaqueVboId, opaqueEboId);
-        setupSingleVAO(transparentVaoId, transparentVboId, transparentEboId);
+        int threads = config.render.meshWorkerThreads > 0 ? config.render.meshWorkerThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.meshBuilder = new MeshBuilder(threads, bufferPool, config.render.fastLeaves);
+        
+        // 预生成能容纳最大分段网格（不透明加镂空四边形）的索引（16位）
+        quadIndices = new QuadIndexBuffer(GreedyMesher.MAX_QUADS_PER_SECTION);
+        
+        oit = "weighted_blended".equals(config.render.transparencyMode) ? new WeightedBlendedOit() : null;
+        System.out.println("Transparency mode: " + (oit != null ? "weighted blended OIT" : "sorted"));
+        
+        stats = new RenderStats(config.render.debugStats);
+        visibilityGraph = config.render.occlusionCulling ? new SectionVisibilityGraph() : null;
+        if (config.render.softwareOcclusion) {
+            occlusionRasterizer = new OcclusionRasterizer();
+            rasterExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "occlusion-raster");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            occlusionRasterizer = null;
+            rasterExecutor = null;
+        }
     }
     
-    private void setupSingleVAO(int vaoId, int vboId, int eboId) {
+    private void setupSingleVAO(int vaoId, int vboId) {
         glBindVertexArray(vaoId);
         
         glBindBuffer(GL_ARRAY_BUFFER, vboId);
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboId);
+        quadIndices.bind();
         
-        // 位置属性 (location = 0)
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 0);
+        // 压缩顶点 (location = 0)：位置 + 面属性两个无符号整数，由着色器解码
+        glVertexAttribIPointer(0, PackedVertex.INTS_PER_VERTEX, GL_UNSIGNED_INT, PackedVertex.BYTES_PER_VERTEX, 0);
         glEnableVertexAttribArray(0);
         
-        // 纹理坐标属性 (location = 1)
-        glVertexAttribPointer(1, 2, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 3 * Float.BYTES);
-        glEnableVertexAttribArray(1);
-        
-        // 方块类型属性 (location = 2)
-        glVertexAttribPointer(2, 1, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 5 * Float.BYTES);
-        glEnableVertexAttribArray(2);
-        
-        // 法线属性 (location = 3)
-        glVertexAttribPointer(3, 3, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 6 * Float.BYTES);
-        glEnableVertexAttribArray(3);
-        
-        // 顶点在面中的坐标 (location = 4)
-        glVertexAttribPointer(4, 2, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 9 * Float.BYTES);
-        glEnableVertexAttribArray(4);
-        
-        // AO遮蔽值 (location = 5)
-        glVertexAttribPointer(5, 1, GL_FLOAT, false, FLOATS_PER_VERTEX * Float.BYTES, 11 * Float.BYTES);
-        glEnableVertexAttribArray(5);
-        
         glBindVertexArray(0);
     }
     
     /**
-     * 从世界数据构建渲染缓冲区（只在初始化时调用一次）
+     * 为可见面发生变化的分段提交后台网格构建（初始化时为所有已加载区块提交）
+     *
+     * 快照在这里创建，工作线程不会访问世界数据；结果在之后的帧中由render上传。
      */
     public void buildMeshFromWorld(World world) {
-        this.world = world; // 保存world引用用于AO计算
-        List<World.VisibleFace> visibleFaces = world.getVisibleFaces();
-        
-        if (visibleFaces.isEmpty()) {
-            opaqueVertexCount = 0;
-            transparentVertexCount = 0;
+        List<Chunk> chunks = world.drainRebuiltChunks();
+        if (chunks.isEmpty()) {
             return;
         }
         
-        // 分离不透明和透明面
-        List<World.VisibleFace> opaqueFaces = new ArrayList<>();
-        List<World.VisibleFace> transparentFaces = new ArrayList<>();
-        
-        for (World.VisibleFace face : visibleFaces) {
-            if (face.block.getType() == Block.BlockType.WATER || 
-                face.block.getType() == Block.BlockType.LEAVES) {
-                transparentFaces.add(face);
-            } else {
-                opaqueFaces.add(face);
+        int sectionCount = 0;
+        for (Chunk chunk : chunks) {
+            for (ChunkSection section : chunk.getSections()) {
+                meshBuilder.submit(section, SectionSnapshot.capture(world, chunk, section));
+                sectionCount++;
             }
         }
         
-        // 构建不透明面缓冲区
-        buildOpaqueBuffer(opaqueFaces);
-        
-        // 构建透明面缓冲区（需要深度排序）
-        buildTransparentBuffer(transparentFaces);
-        
-        System.out.println("Built mesh: " + opaqueFaces.size() + " opaque faces, " + 
-                          transparentFaces.size() + " transparent faces");
+        System.out.println("Queued " + sectionCount + " section meshes (" + meshBuilder.getPendingCount() + " pending)");
     }
     
     /**
-     * 构建不透明方块缓冲区
+     * 上传后台构建完成的分段网格（在渲染线程调用，不等待未完成的任务）
      */
-    private void buildOpaqueBuffer(List<World.VisibleFace> opaqueFaces) {
-        if (opaqueFaces.isEmpty()) {
-            opaqueVertexCount = 0;
-            return;
+    private void uploadCompletedMeshes() {
+        int uploadedCount = 0;
+        long uploadedBytes = 0;
+        MeshBuilder.MeshTask task;
+        while ((task = meshBuilder.pollCompleted()) != null) {
+            SectionMesh mesh = sectionMeshes.get(task.section);
+            if (mesh == null) {
+                int vaoId = glGenVertexArrays();
+                int vboId = glGenBuffers();
+                setupSingleVAO(vaoId, vboId);
+                mesh = new SectionMesh(vaoId, vboId);
+                sectionMeshes.put(task.section, mesh);
+                visibilityGraphDirty = true;
+            }
+            
+            uploadedBytes += (long) task.getVertexBuffer().remaining() * Integer.BYTES;
+            mesh.upload(task.getOriginX(), task.getOriginY(), task.getOriginZ(),
+                        task.getVertexBuffer(), task.getFaceQuadCounts(), task.getCutoutQuadCount());
+            mesh.setConnectivity(task.getConnectivity());
+            mesh.setOccluderBoxes(task.getOccluderBoxes());
+            if (task.getTransparentVertexBuffer() != null && !mesh.hasTransparentBuffers()) {
+                int vaoId = glGenVertexArrays();
+                int vboId = glGenBuffers();
+                int eboId = 0;
+                setupSingleVAO(vaoId, vboId);
+                if (oit == null) {
+                    // 排序模式下透明几何使用自己的索引（按距离排序），替换共享索引
+                    eboId = glGenBuffers();
+                    glBindVertexArray(vaoId);
+                    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboId);
+                    glBindVertexArray(0);
+                }
+                mesh.setTransparentBuffers(vaoId, vboId, eboId);
+            }
+            mesh.uploadTransparent(task.getTransparentPositions(), task.getTransparentVertexBuffer());
+            task.free();
+            uploadedCount++;
         }
         
-        int totalVertices = opaqueFaces.size() * 4;
-        int totalIndices = opaqueFaces.size() * 6;
-        
-        opaqueVertexBuffer = MemoryUtil.memAllocFloat(totalVertices * FLOATS_PER_VERTEX);
-        opaqueIndexBuffer = MemoryUtil.memAllocInt(totalIndices);
-        
-        int currentVertexOffset = 0;
-        for (World.VisibleFace face : opaqueFaces) {
-            addFaceToBuffer(face.block, face.face, currentVertexOffset, opaqueVertexBuffer, opaqueIndexBuffer);
-            currentVertexOffset += 4;
+        if (uploadedCount > 0) {
+            collectTransparentSections();
+            System.out.println("Uploaded " + uploadedCount + " section meshes (" + uploadedBytes / 1024 + " KB), " +
+                              transparentFaceCount + " transparent faces in " + transparentSections.size() +
+                              " sections, native buffers " +
+                              bufferPool.getLiveBytes() / 1024 + " KB live, " +
+                              bufferPool.getPooledBytes() / 1024 + " KB pooled, " +
+                              bufferPool.getPeakBytes() / 1024 + " KB peak");
         }
-        
-        opaqueVertexBuffer.flip();
-        opaqueIndexBuffer.flip();
-        
-        uploadBuffersToGPU(opaqueVaoId, opaqueVboId, opaqueEboId, opaqueVertexBuffer, opaqueIndexBuffer);
-        opaqueVertexCount = totalIndices;
     }
     
-    // 存储透明面数据用于动态排序
-    private List<World.VisibleFace> transparentFaces;
+    // 有透明面的分段，以及按分段中心从远到近的绘制顺序
+    private final List<SectionMesh> transparentSections = new ArrayList<>();
+    private int[] sectionSortKeys = new int[0];
+    private int[] sectionSortOrder = new int[0];
+    private int transparentFaceCount;
+    
+    // 分段内排序用的临时数据（按最大的分段透明面数分配）
+    private final DepthSorter depthSorter = new DepthSorter();
+    private int[] faceSortKeys = new int[0];
+    private int[] faceSortOrder = new int[0];
+    private IntBuffer transparentIndexBuffer;
+    
+    // 重新排序的条件
+    private boolean transparentSectionsDirty; // 有透明面的分段集合或其中的面变化
+    private int sortedBlockX, sortedBlockY, sortedBlockZ; // 上次排序时摄像头所在方块
+    private int sortedSectionX, sortedSectionY, sortedSectionZ; // 上次排序时摄像头所在分段
     
     /**
-     * 构建透明方块缓冲区（不进行排序，留到渲染时动态排序）
+     * 汇总有透明面的分段（不进行排序，留到渲染时排序）
      */
-    private void buildTransparentBuffer(List<World.VisibleFace> transparentFaces) {
-        this.transparentFaces = new ArrayList<>(transparentFaces); // 保存透明面数据
-        
-        if (transparentFaces.isEmpty()) {
-            transparentVertexCount = 0;
-            return;
+    private void collectTransparentSections() {
+        transparentSections.clear();
+        transparentFaceCount = 0;
+        int maxFaceCount = 0;
+        for (SectionMesh mesh : sectionMeshes.values()) {
+            int count = mesh.getTransparentFaceCount();
+            if (count > 0) {
+                transparentSections.add(mesh);
+                transparentFaceCount += count;
+                maxFaceCount = Math.max(maxFaceCount, count);
+            }
         }
         
-        int totalVertices = transparentFaces.size() * 4;
-        int totalIndices = transparentFaces.size() * 6;
-        
-        // 预分配最大缓冲区大小
-        transparentVertexBuffer = MemoryUtil.memAllocFloat(totalVertices * FLOATS_PER_VERTEX);
-        transparentIndexBuffer = MemoryUtil.memAllocInt(totalIndices);
-        
-        // 初始时不上传数据，在渲染时动态生成
-        transparentVertexCount = totalIndices;
+        if (sectionSortKeys.length < transparentSections.size()) {
+            sectionSortKeys = new int[transparentSections.size()];
+            sectionSortOrder = new int[transparentSections.size()];
+        }
+        if (oit == null && faceSortKeys.length < maxFaceCount) {
+            faceSortKeys = new int[maxFaceCount];
+            faceSortOrder = new int[maxFaceCount];
+            freeTransparentBuffers();
+            transparentIndexBuffer = bufferPool.acquireInt(maxFaceCount * 6);
+        }
+        transparentSectionsDirty = true;
     }
     
     /**
-     * 根据摄像头位置重新排序并更新透明方块缓冲区
+     * 更新透明几何的绘制顺序：
+     * - 分段之间按中心距离从远到近
+     * - 摄像头所在及相邻的分段在摄像头跨过方块边界时重新排序分段内的面
+     * - 其他分段只在摄像头进入新的分段时重新排序，新上传的分段总是排序
      */
-    private void updateTransparentBuffer(float cameraX, float cameraY, float cameraZ) {
-        if (transparentFaces == null || transparentFaces.isEmpty()) {
+    private void updateTransparentOrder(float cameraX, float cameraY, float cameraZ) {
+        int blockX = (int) Math.floor(cameraX);
+        int blockY = (int) Math.floor(cameraY);
+        int blockZ = (int) Math.floor(cameraZ);
+        boolean blockChanged = blockX != sortedBlockX || blockY != sortedBlockY || blockZ != sortedBlockZ;
+        if (!blockChanged && !transparentSectionsDirty) {
             return;
         }
         
-        // 按距离摄像头的距离排序（从远到近）
-        transparentFaces.sort(new Comparator<World.VisibleFace>() {
-            @Override
-            public int compare(World.VisibleFace a, World.VisibleFace b) {
-                // 计算面的中心点
-                float centerAX = a.block.getX();
-                float centerAY = a.block.getY();
-                float centerAZ = a.block.getZ();
-                
-                float centerBX = b.block.getX();
-                float centerBY = b.block.getY();
-                float centerBZ = b.block.getZ();
-                
-                // 计算到摄像头的距离平方
-                float distA = (centerAX - cameraX) * (centerAX - cameraX) +
-                             (centerAY - cameraY) * (centerAY - cameraY) +
-                             (centerAZ - cameraZ) * (centerAZ - cameraZ);
-                             
-                float distB = (centerBX - cameraX) * (centerBX - cameraX) +
-                             (centerBY - cameraY) * (centerBY - cameraY) +
-                             (centerBZ - cameraZ) * (centerBZ - cameraZ);
-                
-                return Float.compare(distB, distA); // 从远到近
+        int sectionX = Math.floorDiv(blockX, ChunkSection.SIZE);
+        int sectionY = Math.floorDiv(blockY, ChunkSection.SIZE);
+        int sectionZ = Math.floorDiv(blockZ, ChunkSection.SIZE);
+        boolean sectionChanged = sectionX != sortedSectionX || sectionY != sortedSectionY || sectionZ != sortedSectionZ;
+        
+        int sectionCount = transparentSections.size();
+        for (int i = 0; i < sectionCount; i++) {
+            SectionMesh mesh = transparentSections.get(i);
+            boolean near = Math.abs(mesh.getOriginX() / ChunkSection.SIZE - sectionX) <= 1 &&
+                           Math.abs(mesh.getOriginY() / ChunkSection.SIZE - sectionY) <= 1 &&
+                           Math.abs(mesh.getOriginZ() / ChunkSection.SIZE - sectionZ) <= 1;
+            if (mesh.isTransparentSortNeeded() || sectionChanged || (blockChanged && near)) {
+                mesh.sortTransparent(cameraX, cameraY, cameraZ, depthSorter, faceSortKeys, faceSortOrder,
+                                     transparentIndexBuffer);
             }
-        });
-        
-        // 重新生成缓冲区数据
-        transparentVertexBuffer.clear();
-        transparentIndexBuffer.clear();
-        
-        int currentVertexOffset = 0;
-        for (World.VisibleFace face : transparentFaces) {
-            addFaceToBuffer(face.block, face.face, currentVertexOffset, transparentVertexBuffer, transparentIndexBuffer);
-            currentVertexOffset += 4;
+            
+            float half = ChunkSection.SIZE * 0.5f;
+            float dx = mesh.getOriginX() + half - cameraX;
+            float dy = mesh.getOriginY() + half - cameraY;
+            float dz = mesh.getOriginZ() + half - cameraZ;
+            sectionSortKeys[i] = DepthSorter.farToNearKey(dx * dx + dy * dy + dz * dz);
+            sectionSortOrder[i] = i;
         }
-        
-        transparentVertexBuffer.flip();
-        transparentIndexBuffer.flip();
-        
-        // 重新上传到GPU
-        uploadBuffersToGPU(transparentVaoId, transparentVboId, transparentEboId, transparentVertexBuffer, transparentIndexBuffer);
+        depthSorter.sort(sectionSortKeys, sectionSortOrder, sectionCount);
+        
+        sortedBlockX = blockX;
+        sortedBlockY = blockY;
+        sortedBlockZ = blockZ;
+        sortedSectionX = sectionX;
+        sortedSectionY = sectionY;
+        sortedSectionZ = sectionZ;
+        transparentSectionsDirty = false;
     }
     
     /**
-     * 添加单个面的数据到指定缓冲区
+     * 更新本帧的视锥（在render之前调用，矩阵与着色器使用的相同），并保存矩阵供下一帧的遮挡光栅化使用
      */
-    private void addFaceToBuffer(Block block, int face, int vertexOffset, FloatBuffer vertexBuffer, IntBuffer indexBuffer) {
-        float blockX = block.getX();
-        float blockY = block.getY();
-        float blockZ = block.getZ();
-        
-        // 获取面的顶点坐标
-        float[][] vertices = getFaceVertices(blockX, blockY, blockZ, face);
-        
-        // 获取纹理坐标
-        float[] texCoords = block.getTextureCoords(face);
-        float u1 = texCoords[0], v1 = texCoords[1];
-        float u2 = texCoords[2], v2 = texCoords[3];
-        
-        // 计算AO遮蔽值 - 每个顶点独立计算
-        float[] aoOcclusions = calculateVertexAOOcclusion(block, face);
-        
-        // 添加4个顶点数据
-        for (int i = 0; i < 4; i++) {
-            vertexBuffer.put(vertices[i][0]); // x
-            vertexBuffer.put(vertices[i][1]); // y
-            vertexBuffer.put(vertices[i][2]); // z
-            
-            // 纹理坐标
-            float u = (i == 1 || i == 2) ? u2 : u1;
-            float v = (i == 2 || i == 3) ? v1 : v2;
-            vertexBuffer.put(u);
-            vertexBuffer.put(v);
-            
-            // 方块类型ID
-            vertexBuffer.put((float) block.getType().getId());
-            
-            // 法线向量 (根据面的方向确定)
-            float[] normal = getFaceNormal(face);
-            vertexBuffer.put(normal[0]); // nx
-            vertexBuffer.put(normal[1]); // ny
-            vertexBuffer.put(normal[2]); // nz
-            
-            // 顶点在面中的坐标 (0-1)
-            float vertexCoordX = 0.0f, vertexCoordY = 0.0f;
-            switch (i) {
-                case 0: // 左下角
-                    vertexCoordX = 0.0f;
-                    vertexCoordY = 0.0f;
-                    break;
-                case 1: // 右下角
-                    vertexCoordX = 1.0f;
-                    vertexCoordY = 0.0f;
-                    break;
-                case 2: // 右上角
-                    vertexCoordX = 1.0f;
-                    vertexCoordY = 1.0f;
-                    break;
-                case 3: // 左上角
-                    vertexCoordX = 0.0f;
-                    vertexCoordY = 1.0f;
-                    break;
-            }
-            vertexBuffer.put(vertexCoordX); // vertexCoordX
-            vertexBuffer.put(vertexCoordY); // vertexCoordY
-            vertexBuffer.put(aoOcclusions[i]);   // AO遮蔽值
-        }
-        
-        // 添加索引（2个三角形）
-        indexBuffer.put(vertexOffset);
-        indexBuffer.put(vertexOffset + 1);
-        indexBuffer.put(vertexOffset + 2);
-        
-        indexBuffer.put(vertexOffset + 2);
-        indexBuffer.put(vertexOffset + 3);
-        indexBuffer.put(vertexOffset);
+    public void updateFrustum(float[] projection, float[] view) {
+        frustum.update(projection, view);
+        System.arraycopy(projection, 0, rasterProjection, 0, 16);
+        System.arraycopy(view, 0, rasterView, 0, 16);
+        hasRasterMatrices = true;
     }
     
     /**
-     * 获取方块某个面的顶点坐标
-     * 修复：统一坐标系统，方块整数坐标(x,y,z)对应世界坐标(x,y,z)到(x+1,y+1,z+1)
+     * 用上一帧的矩阵收集视锥内分段的遮挡体，提交到光栅化线程（在世界更新之后、render之前调用）
      */
-    private float[][] getFaceVertices(float x, float y, float z, int face) {
-        float[][] vertices = new float[4][3];
-        
-        switch (face) {
-            case 0: // 前面 (+Z)
-                vertices[0] = new float[]{x, y, z + 1.0f}; // 左下
-                vertices[1] = new float[]{x + 1.0f, y, z + 1.0f}; // 右下
-                vertices[2] = new float[]{x + 1.0f, y + 1.0f, z + 1.0f}; // 右上
-                vertices[3] = new float[]{x, y + 1.0f, z + 1.0f}; // 左上
-                break;
-            case 1: // 后面 (-Z)
-                vertices[0] = new float[]{x + 1.0f, y, z}; // 左下
-                vertices[1] = new float[]{x, y, z}; // 右下
-                vertices[2] = new float[]{x, y + 1.0f, z}; // 右上
-                vertices[3] = new float[]{x + 1.0f, y + 1.0f, z}; // 左上
-                break;
-            case 2: // 左面 (-X)
-                vertices[0] = new float[]{x, y, z}; // 左下
-                vertices[1] = new float[]{x, y, z + 1.0f}; // 右下
-                vertices[2] = new float[]{x, y + 1.0f, z + 1.0f}; // 右上
-                vertices[3] = new float[]{x, y + 1.0f, z}; // 左上
-                break;
-            case 3: // 右面 (+X)
-                vertices[0] = new float[]{x + 1.0f, y, z + 1.0f}; // 左下
-                vertices[1] = new float[]{x + 1.0f, y, z}; // 右下
-                vertices[2] = new float[]{x + 1.0f, y + 1.0f, z}; // 右上
-                vertices[3] = new float[]{x + 1.0f, y + 1.0f, z + 1.0f}; // 左上
-                break;
-            case 4: // 上面 (+Y)
-                vertices[0] = new float[]{x, y + 1.0f, z + 1.0f}; // 左下
-                vertices[1] = new float[]{x + 1.0f, y + 1.0f, z + 1.0f}; // 右下
-                vertices[2] = new float[]{x + 1.0f, y + 1.0f, z}; // 右上
-                vertices[3] = new float[]{x, y + 1.0f, z}; // 左上
-                break;
-            case 5: // 下面 (-Y)
-                vertices[0] = new float[]{x, y, z}; // 左下
-                vertices[1] = new float[]{x + 1.0f, y, z}; // 右下
-                vertices[2] = new float[]{x + 1.0f, y, z + 1.0f}; // 右上
-                vertices[3] = new float[]{x, y, z + 1.0f}; // 左上
-                break;
+    public void startOcclusionRaster() {
+        if (occlusionRasterizer == null || !hasRasterMatrices) {
+            return;
+        }
+        awaitOcclusionRaster(); // 上一帧没有渲染时任务可能还在运行
+        
+        rasterFrustum.update(rasterProjection, rasterView);
+        int count = 0;
+        for (SectionMesh mesh : sectionMeshes.values()) {
+            int[] boxes = mesh.getOccluderBoxes();
+            if (boxes.length == 0) {
+                continue;
+            }
+            float originX = mesh.getOriginX();
+            float originY = mesh.getOriginY();
+            float originZ = mesh.getOriginZ();
+            if (!rasterFrustum.intersectsBox(originX, originY, originZ, originX + ChunkSection.SIZE,
+                                       originY + ChunkSection.SIZE, originZ + ChunkSection.SIZE)) {
+                continue;
+            }
+            if (occluderBoxes.length < (count + boxes.length / 6) * 6) {
+                occluderBoxes = Arrays.copyOf(occluderBoxes, Math.max(occluderBoxes.length * 2, (count + boxes.length / 6) * 6));
+            }
+            for (int i = 0; i < boxes.length; i += 3) {
+                occluderBoxes[count * 6 + i] = originX + boxes[i];
+                occluderBoxes[count * 6 + i + 1] = originY + boxes[i + 1];
+                occluderBoxes[count * 6 + i + 2] = originZ + boxes[i + 2];
+            }
+            count += boxes.length / 6;
         }
         
-        return vertices;
+        occlusionRasterizer.begin(rasterProjection, rasterView);
+        float[] boxes = occluderBoxes;
+        int boxCount = count;
+        rasterTask = rasterExecutor.submit(() -> {
+            long start = System.nanoTime();
+            occlusionRasterizer.rasterize(boxes, boxCount);
+            rasterNanos = System.nanoTime() - start;
+        });
     }
     
     /**
-     * 获取方块某个面的法线向量
+     * 等待本帧的光栅化完成
+     * @return 深度缓冲区是否可用
      */
-    private float[] getFaceNormal(int face) {
-        switch (face) {
-            case 0: // 前面 (+Z)
-                return new float[]{0, 0, 1};
-            case 1: // 后面 (-Z)
-                return new float[]{0, 0, -1};
-            case 2: // 左面 (-X)
-                return new float[]{-1, 0, 0};
-            case 3: // 右面 (+X)
-                return new float[]{1, 0, 0};
-            case 4: // 上面 (+Y)
-                return new float[]{0, 1, 0};
-            case 5: // 下面 (-Y)
-                return new float[]{0, -1, 0};
-            default:
-                return new float[]{0, 0, 1}; // 默认正面
+    private boolean awaitOcclusionRaster() {
+        if (rasterTask == null) {
+            return false;
+        }
+        try {
+            rasterTask.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Occlusion rasterization failed", e.getCause());
+        } finally {
+            rasterTask = null;
         }
     }
     
-    
     /**
-     * 计算面顶点的AO遮蔽值
-     * 使用Minecraft风格的环境光遮蔽算法
+     * 渲染（每帧调用）
+     * @param shaderProgram 当前使用的方块着色器（用于设置网格原点）
+     * @param lookX 视线方向X分量（用于网格构建任务的优先级）
+     * @param lookZ 视线方向Z分量
      */
-    private float[] calculateVertexAOOcclusion(Block block, int face) {
-        if (world == null) return new float[]{0.0f, 0.0f, 0.0f, 0.0f};
+    public void render(int shaderProgram, int textureId, float cameraX, float cameraY, float cameraZ,
+                       float lookX, float lookZ) {
+        meshBuilder.setFocus(cameraX, cameraZ, lookX, lookZ);
+        uploadCompletedMeshes();
+        
+        glActiveTexture(GL_TEXTURE0);
+        glBindTexture(GL_TEXTURE_2D, textureId);
         
-        int x = block.getX();
-        int y = block.getY();
-        int z = block.getZ();
+        stats.beginFrame();
+        cullSections(cameraX, cameraY, cameraZ);
+        
+        // 先渲染可见分段的不透明方块（启用背面剔除，不需要混合），整段背向摄像头的面方向不提交
+        int originLocation = glGetUniformLocation(shaderProgram, "chunkOrigin");
+        glDisable(GL_BLEND);
+        glEnable(GL_CULL_FACE);
+        for (int i = 0; i < visibleSections.size(); i++) {
+            SectionMesh mesh = visibleSections.get(i);
+            int faceMask = SectionMesh.frontFaceMask(mesh.getOriginX(), mesh.getOriginY(), mesh.getOriginZ(),
+                                                     cameraX, cameraY, cameraZ);
+            int drawn = mesh.drawOpaque(originLocation, quadIndices.getIndexType(), faceMask, drawCounts, drawOffsets);
+            stats.opaqueQuads(drawn, mesh.getIndexCount() / 6 - drawn);
+        }
         
-        // 根据面的类型计算四个顶点的AO值
-        float[] aoValues = new float[4];
+        // 镂空方块（树叶）：透明度测试并写入深度，不需要排序；禁用背面剔除，透过镂空处能看到方块另一侧的面
+        glDisable(GL_CULL_FACE);
+        for (int i = 0; i < visibleSections.size(); i++) {
+            visibleSections.get(i).drawCutout(originLocation, quadIndices.getIndexType());
+        }
+        glEnable(GL_CULL_FACE);
+        glEnable(GL_BLEND);
         
-        switch (face) {
-            case 0: // 前面 (+Z)
-                // 左下角 (0,0) - 检查面上方一格周围的方块
-                aoValues[0] = calculateVertexAO(x-1, y, z+1, x, y-1, z+1, x-1, y-1, z+1);
-                // 右下角 (1,0)
-                aoValues[1] = calculateVertexAO(x+1, y, z+1, x, y-1, z+1, x+1, y-1, z+1);
-                // 右上角 (1,1)
-                aoValues[2] = calculateVertexAO(x+1, y, z+1, x, y+1, z+1, x+1, y+1, z+1);
-                // 左上角 (0,1)
-                aoValues[3] = calculateVertexAO(x-1, y, z+1, x, y+1, z+1, x-1, y+1, z+1);
-                break;
-            case 1: // 后面 (-Z)
-                // 左下角 (0,0)
-                aoValues[0] = calculateVertexAO(x+1, y, z-1, x, y-1, z-1, x+1, y-1, z-1);
-                // 右下角 (1,0)
-                aoValues[1] = calculateVertexAO(x-1, y, z-1, x, y-1, z-1, x-1, y-1, z-1);
-                // 右上角 (1,1)
-                aoValues[2] = calculateVertexAO(x-1, y, z-1, x, y+1, z-1, x-1, y+1, z-1);
-                // 左上角 (0,1)
-                aoValues[3] = calculateVertexAO(x+1, y, z-1, x, y+1, z-1, x+1, y+1, z-1);
-                break;
-            case 2: // 左面 (-X)
-                // 左下角 (0,0)
-                aoValues[0] = calculateVertexAO(x-1, y, z-1, x-1, y-1, z, x-1, y-1, z-1);
-                // 右下角 (1,0)
-                aoValues[1] = calculateVertexAO(x-1, y, z+1, x-1, y-1, z, x-1, y-1, z+1);
-                // 右上角 (1,1)
-                aoValues[2] = calculateVertexAO(x-1, y, z+1, x-1, y+1, z, x-1, y+1, z+1);
-                // 左上角 (0,1)
-                aoValues[3] = calculateVertexAO(x-1, y, z-1, x-1, y+1, z, x-1, y+1, z-1);
-                break;
-            case 3: // 右面 (+X)
-                // 左下角 (0,0)
-                aoValues[0] = calculateVertexAO(x+1, y, z+1, x+1, y-1, z, x+1, y-1, z+1);
-                // 右下角 (1,0)
-                aoValues[1] = calculateVertexAO(x+1, y, z-1, x+1, y-1, z, x+1, y-1, z-1);
-                // 右上角 (1,1)
-                aoValues[2] = calculateVertexAO(x+1, y, z-1, x+1, y+1, z, x+1, y+1, z-1);
-                // 左上角 (0,1)
-                aoValues[3] = calculateVertexAO(x+1, y, z+1, x+1, y+1, z, x+1, y+1, z+1);
-                break;
-            case 4: // 上面 (+Y)
-                // 左下角 (0,0)
-                aoValues[0] = calculateVertexAO(x-1, y+1, z, x, y+1, z+1, x-1, y+1, z+1);
-                // 右下角 (1,0)
-                aoValues[1] = calculateVertexAO(x+1, y+1, z, x, y+1, z+1, x+1, y+1, z+1);
-                // 右上角 (1,1)
-                aoValues[2] = calculateVertexAO(x+1, y+1, z, x, y+1, z-1, x+1, y+1, z-1);
-                // 左上角 (0,1)
-                aoValues[3] = calculateVertexAO(x-1, y+1, z, x, y+1, z-1, x-1, y+1, z-1);
-                break;
-            case 5: // 下面 (-Y)
-                // 左下角 (0,0)
-                aoValues[0] = calculateVertexAO(x-1, y-1, z, x, y-1, z-1, x-1, y-1, z-1);
-                // 右下角 (1,0)
-                aoValues[1] = calculateVertexAO(x+1, y-1, z, x, y-1, z-1, x+1, y-1, z-1);
-                // 右上角 (1,1)
-                aoValues[2] = calculateVertexAO(x+1, y-1, z, x, y-1, z+1, x+1, y-1, z+1);
-                // 左上角 (0,1)
-                aoValues[3] = calculateVertexAO(x-1, y-1, z, x, y-1, z+1, x-1, y-1, z+1);
-                break;
+        if (oit != null) {
+            renderTransparentOit(shaderProgram, originLocation);
+        } else {
+            renderTransparentSorted(originLocation, cameraX, cameraY, cameraZ);
         }
         
-        return aoValues;
+        glBindVertexArray(0);
+        stats.endFrame();
     }
     
     /**
-     * 计算单个顶点的AO值
-     * 改进的Minecraft风格AO算法，创建更平滑的圆形阴影效果
-     * 检查周围9个位置的方块来计算更精确的AO值
+     * 用本帧的视锥和分段连通性剔除分段，结果保存在visibleSections和各分段的可见标记中
+     *
+     * 启用遮挡剔除时从摄像头所在分段搜索可见性图，搜索不到的分段被地形挡住；
+     * 未到达的分段再做一次视锥测试，只用于区分两种剔除的统计。
+     * 启用软件遮挡时，剩下的分段再用光栅化的深度缓冲区测试。
      */
-    private float calculateVertexAO(int side1X, int side1Y, int side1Z,
-                                     int side2X, int side2Y, int side2Z,
-                                     int side3X, int side3Y, int side3Z) {
-        // 检查三个相邻方向的方块
-        Block side1Block = world.getBlockAt(side1X, side1Y, side1Z);
-        Block side2Block = world.getBlockAt(side2X, side2Y, side2Z);
-        Block side3Block = world.getBlockAt(side3X, side3Y, side3Z);
+    private void cullSections(float cameraX, float cameraY, float cameraZ) {
+        visibleSections.clear();
+        if (visibilityGraph != null) {
+            if (visibilityGraphDirty) {
+                visibilityGraph.rebuild(sectionMeshes.values());
+                visibilityGraphDirty = false;
+            }
+            for (SectionMesh mesh : sectionMeshes.values()) {
+                mesh.setVisible(false);
+            }
+            visibilityGraph.traverse(cameraX, cameraY, cameraZ, frustum, visibleSections);
+        }
         
-        // 计算遮蔽值 - 为边缘中心创建更暗的效果，减少角落影响
-        int side1Solid = (side1Block != null && side1Block.isSolid()) ? 1 : 0; // 边缘方向1
-        int side2Solid = (side2Block != null && side2Block.isSolid()) ? 1 : 0; // 边缘方向2
-        int side3Solid = (side3Block != null && side3Block.isSolid()) ? 1 : 0; // 对角线方向
+        for (SectionMesh mesh : sectionMeshes.values()) {
+            stats.sectionTested();
+            if (visibilityGraph != null && mesh.isVisible()) {
+                continue;
+            }
+            float minX = mesh.getOriginX();
+            float minY = mesh.getOriginY();
+            float minZ = mesh.getOriginZ();
+            boolean inFrustum = frustum.intersectsBox(minX, minY, minZ,
+                    minX + ChunkSection.SIZE, minY + ChunkSection.SIZE, minZ + ChunkSection.SIZE);
+            if (!inFrustum) {
+                mesh.setVisible(false);
+                stats.sectionFrustumCulled();
+            } else if (visibilityGraph != null) {
+                stats.sectionOcclusionCulled();
+            } else {
+                mesh.setVisible(true);
+                visibleSections.add(mesh);
+            }
+        }
         
-        // 改进的Minecraft风格AO计算 - 创建更平滑的过渡效果
-        // 当两个边缘方向都被遮挡时，增加遮蔽强度以创建圆形阴影
-        if (side1Solid == 1 && side2Solid == 1) {
-            // 两个边缘都被遮挡，创建更强的角落阴影
-            return 0.5f; // 强遮蔽
-        } else if (side1Solid == 1 || side2Solid == 1) {
-            // 只有一个边缘被遮挡
-            return 0.25f; // 中等遮蔽
-        } else if (side3Solid == 1) {
-            // 只有对角线被遮挡
-            return 0.1f; // 轻微遮蔽
-        } else {
-            // 没有遮挡
-            return 0.0f; // 无遮蔽
+        if (awaitOcclusionRaster()) {
+            stats.rasterTime(rasterNanos);
+            int kept = 0;
+            for (int i = 0; i < visibleSections.size(); i++) {
+                SectionMesh mesh = visibleSections.get(i);
+                float minX = mesh.getOriginX();
+                float minY = mesh.getOriginY();
+                float minZ = mesh.getOriginZ();
+                if (occlusionRasterizer.isBoxOccluded(minX, minY, minZ,
+                        minX + ChunkSection.SIZE, minY + ChunkSection.SIZE, minZ + ChunkSection.SIZE)) {
+                    mesh.setVisible(false);
+                    stats.sectionRasterCulled();
+                } else {
+                    visibleSections.set(kept++, mesh);
+                }
+            }
+            visibleSections.subList(kept, visibleSections.size()).clear();
         }
+        stats.sectionsDrawn(visibleSections.size());
     }
     
-    
     /**
-     * 上传缓冲区数据到GPU
+     * 按分段从远到近渲染可见的透明方块（禁用背面剔除）
      */
-    private void uploadBuffersToGPU(int vaoId, int vboId, int eboId, FloatBuffer vertexBuffer, IntBuffer indexBuffer) {
-        glBindVertexArray(vaoId);
-        
-        // 上传顶点数据
-        glBindBuffer(GL_ARRAY_BUFFER, vboId);
-        glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STATIC_DRAW);
-        
-        // 上传索引数据
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboId);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_STATIC_DRAW);
+    private void renderTransparentSorted(int originLocation, float cameraX, float cameraY, float cameraZ) {
+        // 摄像头跨过方块边界或透明面变化时重新排序（不可见的分段也保持顺序，进入视野时不需要等待排序）
+        updateTransparentOrder(cameraX, cameraY, cameraZ);
         
-        glBindVertexArray(0);
+        if (!transparentSections.isEmpty()) {
+            glDisable(GL_CULL_FACE);
+            for (int i = 0; i < transparentSections.size(); i++) {
+                SectionMesh mesh = transparentSections.get(sectionSortOrder[i]);
+                if (mesh.isVisible()) {
+                    mesh.drawTransparent(originLocation);
+                }
+            }
+            glEnable(GL_CULL_FACE); // 恢复背面剔除
+        }
     }
     
     /**
-     * 渲染（每帧调用）
+     * 用加权混合OIT渲染透明方块（不排序，累积后一次合成）
      */
-    public void render(int textureId, float cameraX, float cameraY, float cameraZ) {
-        glActiveTexture(GL_TEXTURE0);
-        glBindTexture(GL_TEXTURE_2D, textureId);
-        
-        // 先渲染不透明方块（启用背面剔除）
-        if (opaqueVertexCount > 0) {
-            glEnable(GL_CULL_FACE);
-            glBindVertexArray(opaqueVaoId);
-            glDrawElements(GL_TRIANGLES, opaqueVertexCount, GL_UNSIGNED_INT, 0);
+    private void renderTransparentOit(int shaderProgram, int originLocation) {
+        if (transparentSections.isEmpty()) {
+            return;
         }
         
-        // 更新并渲染透明方块（禁用背面剔除）
-        if (transparentVertexCount > 0) {
-            // 每帧重新排序透明方块
-            updateTransparentBuffer(cameraX, cameraY, cameraZ);
-            
-            glDisable(GL_CULL_FACE);
-            glBindVertexArray(transparentVaoId);
-            glDrawElements(GL_TRIANGLES, transparentVertexCount, GL_UNSIGNED_INT, 0);
-            glEnable(GL_CULL_FACE); // 恢复背面剔除
+        int oitPassLocation = glGetUniformLocation(shaderProgram, "oitPass");
+        oit.beginAccumulation();
+        glUniform1i(oitPassLocation, 1);
+        glDisable(GL_CULL_FACE);
+        for (int i = 0; i < transparentSections.size(); i++) {
+            SectionMesh mesh = transparentSections.get(i);
+            if (mesh.isVisible()) {
+                mesh.drawTransparentUnsorted(originLocation, quadIndices.getIndexType());
+            }
+        }
+        glEnable(GL_CULL_FACE);
+        glUniform1i(oitPassLocation, 0);
+        oit.composite(shaderProgram);
+    }
+    
+    /**
+     * 把透明面排序用的索引缓冲区还给缓冲区池
+     */
+    private void freeTransparentBuffers() {
+        if (transparentIndexBuffer != null) {
+            bufferPool.release(transparentIndexBuffer);
+            transparentIndexBuffer = null;
         }
-        
-        glBindVertexArray(0);
     }
     
     /**
      * 清理资源
      */
     public void cleanup() {
-        if (opaqueVaoId != 0) glDeleteVertexArrays(opaqueVaoId);
-        if (opaqueVboId != 0) glDeleteBuffers(opaqueVboId);
-        if (opaqueEboId != 0) glDeleteBuffers(opaqueEboId);
-        
-        if (transparentVaoId != 0) glDeleteVertexArrays(transparentVaoId);
-        if (transparentVboId != 0) glDeleteBuffers(transparentVboId);
-        if (transparentEboId != 0) glDeleteBuffers(transparentEboId);
-        
-        if (opaqueVertexBuffer != null) {
-            MemoryUtil.memFree(opaqueVertexBuffer);
-            opaqueVertexBuffer = null;
+        meshBuilder.shutdown();
+        if (rasterExecutor != null) {
+            awaitOcclusionRaster();
+            rasterExecutor.shutdown();
         }
-        if (opaqueIndexBuffer != null) {
-            MemoryUtil.memFree(opaqueIndexBuffer);
-            opaqueIndexBuffer = null;
+        for (SectionMesh mesh : sectionMeshes.values()) {
+            mesh.cleanup();
         }
-        if (transparentVertexBuffer != null) {
-            MemoryUtil.memFree(transparentVertexBuffer);
-            transparentVertexBuffer = null;
-        }
-        if (transparentIndexBuffer != null) {
-            MemoryUtil.memFree(transparentIndexBuffer);
-            transparentIndexBuffer = null;
+        sectionMeshes.clear();
+        
+        quadIndices.cleanup();
+        if (oit != null) {
+            oit.cleanup();
         }
+        
+        freeTransparentBuffers();
+        bufferPool.freeAll();
+        MemoryUtil.memFree(drawCounts);
+        MemoryUtil.memFree(drawOffsets);
     }
     
-}
\ No newline at end of file
+    public RenderStats getStats() { return stats; }
+}
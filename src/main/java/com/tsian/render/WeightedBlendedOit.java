@@ -0,0 +1,144 @@
+package com.tsian.render;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL14.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * 加权混合顺序无关透明（Weighted Blended OIT）- 半透明几何不需要排序
+ *
+ * 半透明面先绘制到离屏的累积目标，再用一次全屏合成混合到场景上：
+ * - 颜色附件0（RGBA16F）：rgb累加 颜色 * alpha * 权重，a连乘 (1 - alpha) 得到透过率
+ * - 颜色附件1（R16F）：累加 alpha * 权重
+ * GL 3.3不能为每个附件设置不同的混合函数，因此透过率放在附件0的alpha中，
+ * 两个附件共用 glBlendFuncSeparate(ONE, ONE, ZERO, ONE_MINUS_SRC_ALPHA)。
+ *
+ * 累积时需要不透明几何的深度：每帧把默认帧缓冲区的深度复制到离屏深度缓冲区
+ * （两者都是24位深度 + 8位模板，格式一致才能复制）。
+ */
+public class WeightedBlendedOit {
+    
+    private static final float[] CLEAR_ACCUM = {0.0f, 0.0f, 0.0f, 1.0f}; // 透过率初始为1
+    private static final float[] CLEAR_WEIGHT = {0.0f, 0.0f, 0.0f, 0.0f};
+    
+    private final int framebufferId;
+    private final int accumTextureId;
+    private final int weightTextureId;
+    private final int depthRenderbufferId;
+    private final int compositeProgram;
+    private final int emptyVaoId; // 全屏三角形不需要顶点数据，但核心模式绘制时必须绑定VAO
+    private final int[] viewport = new int[4];
+    private int width, height;
+    
+    public WeightedBlendedOit() {
+        framebufferId = glGenFramebuffers();
+        accumTextureId = glGenTextures();
+        weightTextureId = glGenTextures();
+        depthRenderbufferId = glGenRenderbuffers();
+        emptyVaoId = glGenVertexArrays();
+        
+        compositeProgram = new ShaderManager().createOitCompositeShaderProgram();
+        glUseProgram(compositeProgram);
+        glUniform1i(glGetUniformLocation(compositeProgram, "accumTexture"), 1);
+        glUniform1i(glGetUniformLocation(compositeProgram, "weightTexture"), 2);
+        glUseProgram(0);
+    }
+    
+    /**
+     * 开始累积半透明几何：复制深度、清空累积目标并设置混合状态（之后绘制的片段输出到离屏目标）
+     */
+    public void beginAccumulation() {
+        glGetIntegerv(GL_VIEWPORT, viewport);
+        if (viewport[2] != width || viewport[3] != height) {
+            resize(viewport[2], viewport[3]);
+        }
+        
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, 0);
+        glBindFramebuffer(GL_DRAW_FRAMEBUFFER, framebufferId);
+        glBlitFramebuffer(0, 0, width, height, 0, 0, width, height, GL_DEPTH_BUFFER_BIT, GL_NEAREST);
+        glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
+        
+        glClearBufferfv(GL_COLOR, 0, CLEAR_ACCUM);
+        glClearBufferfv(GL_COLOR, 1, CLEAR_WEIGHT);
+        
+        glDepthMask(false); // 只做深度测试，半透明面互不遮挡
+        glEnable(GL_BLEND);
+        glBlendFuncSeparate(GL_ONE, GL_ONE, GL_ZERO, GL_ONE_MINUS_SRC_ALPHA);
+    }
+    
+    /**
+     * 结束累积并合成到默认帧缓冲区，然后恢复状态和方块着色器
+     */
+    public void composite(int blockShaderProgram) {
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        glDepthMask(true);
+        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        
+        glDisable(GL_DEPTH_TEST);
+        glUseProgram(compositeProgram);
+        glActiveTexture(GL_TEXTURE1);
+        glBindTexture(GL_TEXTURE_2D, accumTextureId);
+        glActiveTexture(GL_TEXTURE2);
+        glBindTexture(GL_TEXTURE_2D, weightTextureId);
+        glBindVertexArray(emptyVaoId);
+        glDrawArrays(GL_TRIANGLES, 0, 3);
+        
+        glActiveTexture(GL_TEXTURE0);
+        glEnable(GL_DEPTH_TEST);
+        glUseProgram(blockShaderProgram);
+    }
+    
+    /**
+     * 按视口大小重新分配离屏目标
+     */
+    private void resize(int newWidth, int newHeight) {
+        width = newWidth;
+        height = newHeight;
+        
+        setupTexture(accumTextureId, GL_RGBA16F, GL_RGBA);
+        setupTexture(weightTextureId, GL_R16F, GL_RED);
+        glBindTexture(GL_TEXTURE_2D, 0);
+        
+        glBindRenderbuffer(GL_RENDERBUFFER, depthRenderbufferId);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH24_STENCIL8, width, height);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+        
+        glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
+        glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, accumTextureId, 0);
+        glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT1, GL_TEXTURE_2D, weightTextureId, 0);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_STENCIL_ATTACHMENT, GL_RENDERBUFFER, depthRenderbufferId);
+        glDrawBuffers(new int[] {GL_COLOR_ATTACHMENT0, GL_COLOR_ATTACHMENT1});
+        int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            System.err.println("OIT framebuffer incomplete: 0x" + Integer.toHexString(status));
+        }
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        
+        System.out.println("OIT targets resized to " + width + "x" + height);
+    }
+    
+    private void setupTexture(int textureId, int internalFormat, int format) {
+        glBindTexture(GL_TEXTURE_2D, textureId);
+        glTexImage2D(GL_TEXTURE_2D, 0, internalFormat, width, height, 0, format, GL_HALF_FLOAT, (ByteBuffer) null);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+    }
+    
+    /**
+     * 释放GPU资源
+     */
+    public void cleanup() {
+        glDeleteFramebuffers(framebufferId);
+        glDeleteTextures(accumTextureId);
+        glDeleteTextures(weightTextureId);
+        glDeleteRenderbuffers(depthRenderbufferId);
+        glDeleteVertexArrays(emptyVaoId);
+        glDeleteProgram(compositeProgram);
+    }
+}
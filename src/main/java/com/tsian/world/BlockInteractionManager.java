@@ -202,7 +202,8 @@ public class BlockInteractionManager {
      * 移除方块（实际上设置为空气）
      */
     private void removeBlock(Block block) {
-        block.setType(Block.BlockType.AIR);
+        // 通过世界移除，使所在区块被标记为需要重建
+        world.removeBlockAt(block.getX(), block.getY(), block.getZ());
         // 需要重新计算可见面和更新渲染
         world.recalculateVisibleFaces();
         // 标记需要重新构建渲染缓冲区
@@ -1,5 +1,6 @@
 package com.tsian.world;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,6 +11,7 @@ import java.util.Map;
  * - 存储和管理区块内的方块数据
  * - 提供区块级别的方块操作方法
  * - 验证坐标是否在区块范围内
+ * - 按16格高度划分分段，维护分段的占用掩码
  */
 public class Chunk {
     
@@ -17,13 +19,16 @@ public class Chunk {
     
     private final int chunkX, chunkZ; // 区块坐标
     private final Map<String, Block> blocks; // 区块内的方块
+    private final Map<Integer, ChunkSection> sections; // 按分段Y索引存储的分段
     private boolean isGenerated; // 是否已生成地形
     private boolean needsRebuild; // 是否需要重新构建渲染数据
+    private DirtyListener dirtyListener; // 区块从干净变为需要重建时的通知对象
     
     public Chunk(int chunkX, int chunkZ) {
         this.chunkX = chunkX;
         this.chunkZ = chunkZ;
         this.blocks = new HashMap<>();
+        this.sections = new HashMap<>();
         this.isGenerated = false;
         this.needsRebuild = true;
     }
@@ -41,7 +46,8 @@ public class Chunk {
         } else {
             blocks.put(key, new Block(worldX, worldY, worldZ, type));
         }
-        needsRebuild = true;
+        updateSection(worldX, worldY, worldZ, type);
+        markDirty();
     }
     
     /**
@@ -51,6 +57,37 @@ public class Chunk {
         return blocks.get(getBlockKey(worldX, worldY, worldZ));
     }
     
+    /**
+     * 同步更新方块所在分段（分段在第一次放置非空气方块时创建）
+     */
+    private void updateSection(int worldX, int worldY, int worldZ, Block.BlockType type) {
+        int sectionY = Math.floorDiv(worldY, ChunkSection.SIZE);
+        ChunkSection section = sections.get(sectionY);
+        if (section == null) {
+            if (type == Block.BlockType.AIR) {
+                return;
+            }
+            section = new ChunkSection(sectionY);
+            sections.put(sectionY, section);
+        }
+        section.setBlock(worldX - chunkX * CHUNK_SIZE, Math.floorMod(worldY, ChunkSection.SIZE),
+                         worldZ - chunkZ * CHUNK_SIZE, type);
+    }
+    
+    /**
+     * 获取指定Y索引的分段，不存在时返回null
+     */
+    public ChunkSection getSection(int sectionY) {
+        return sections.get(sectionY);
+    }
+    
+    /**
+     * 获取区块内所有分段
+     */
+    public Collection<ChunkSection> getSections() {
+        return sections.values();
+    }
+    
     /**
      * 检查世界坐标是否在此区块内
      */
@@ -84,7 +121,8 @@ public class Chunk {
         Block block = getBlock(worldX, worldY, worldZ);
         if (block != null && block.getType() != Block.BlockType.AIR) {
             block.setType(Block.BlockType.AIR);
-            needsRebuild = true;
+            updateSection(worldX, worldY, worldZ, Block.BlockType.AIR);
+            markDirty();
             return true;
         }
         return false;
@@ -117,6 +155,35 @@ public class Chunk {
         needsRebuild = false;
     }
     
+    /**
+     * 标记区块需要重建（只在自上次重建后的第一次修改时通知监听者）
+     */
+    public void markDirty() {
+        if (!needsRebuild) {
+            needsRebuild = true;
+            if (dirtyListener != null) {
+                dirtyListener.onChunkDirty(this);
+            }
+        }
+    }
+    
+    /**
+     * 设置脏区块监听者（区块加入世界时调用），若区块当前已需要重建则立即通知
+     */
+    public void setDirtyListener(DirtyListener dirtyListener) {
+        this.dirtyListener = dirtyListener;
+        if (needsRebuild && dirtyListener != null) {
+            dirtyListener.onChunkDirty(this);
+        }
+    }
+    
+    /**
+     * 脏区块监听接口
+     */
+    public interface DirtyListener {
+        void onChunkDirty(Chunk chunk);
+    }
+    
     /**
      * 获取区块的字符串表示
      */
@@ -1,8 +1,14 @@
 package com.tsian.world;
 
 import com.tsian.config.GameConfig;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * 区块管理器 - 管理固定4x4区块空岛
@@ -11,10 +17,13 @@ import java.util.Map;
  * - 管理所有已加载的区块
  * - 提供世界级别的方块操作接口（坐标验证、区块查找等）
  * - 协调区块的加载和初始化
+ * - 在后台线程中按优先级流式加载视距内的区块，并取消超出视距的加载任务
  * - 作为World类和Chunk类之间的中介
  */
 public class ChunkManager {
     
+    private static final int MAX_LOAD_ATTEMPTS = 3; // 同一区块后台加载失败的最多尝试次数
+    
     // 固定的空岛范围：4x4区块 (64x64方块)
     private int ISLAND_SIZE; // 空岛大小（区块）
     private int ISLAND_MIN_CHUNK; // 空岛最小区块坐标
@@ -23,6 +32,25 @@ public class ChunkManager {
     private final Map<String, Chunk> loadedChunks; // 已加载的区块
     private boolean isInitialized = false; // 是否已初始化空岛
     
+    private final TerrainGenerator terrainGenerator; // 地形生成器
+    private final ChunkStorage chunkStorage; // 区块存储（预生成的区块）
+    
+    // 流式加载
+    private final int viewDistance; // 加载距离（区块）
+    private final ChunkTaskScheduler scheduler; // 后台任务调度器
+    private final Map<String, ChunkTaskScheduler.ChunkTask> pendingLoads; // 排队或执行中的加载任务
+    private final ConcurrentLinkedQueue<Chunk> completedLoads; // 后台线程加载完成、等待加入世界的区块
+    private final ConcurrentLinkedQueue<ChunkTaskScheduler.ChunkTask> failedLoads; // 后台线程加载失败的任务
+    private final Map<String, Integer> loadFailures; // 每个区块加载失败的次数，达到上限后不再重试
+    private Chunk.DirtyListener chunkDirtyListener; // 加入世界的区块变脏时的通知对象
+    private int lastCenterChunkX = Integer.MAX_VALUE;
+    private int lastCenterChunkZ = Integer.MAX_VALUE;
+    
+    // 预测加载（沿移动方向提前加载区块）
+    private final float prefetchSeconds; // 预读时间（秒）
+    private int lastPredictedChunkX = Integer.MAX_VALUE;
+    private int lastPredictedChunkZ = Integer.MAX_VALUE;
+    
     public ChunkManager() {
         this(new GameConfig());
     }
@@ -34,13 +62,190 @@ public class ChunkManager {
         this.ISLAND_SIZE = config.world.islandSize;
         this.ISLAND_MIN_CHUNK = config.world.islandMinChunk;
         this.ISLAND_MAX_CHUNK = config.world.islandMaxChunk;
+        
+        // 配置未指定种子时复用存档目录中保存的种子，否则存档中的区块都会因种子不同而重新生成
+        Long savedSeed = config.world.seed == 0 ? loadSavedSeed(config.world.saveDirectory) : null;
+        long seed = config.world.seed != 0 ? config.world.seed : savedSeed != null ? savedSeed : new Random().nextLong();
+        this.terrainGenerator = new TerrainGenerator(seed, config);
+        this.chunkStorage = config.world.saveDirectory != null ? new ChunkStorage(config.world.saveDirectory, seed) : null;
+        if (chunkStorage != null && savedSeed == null) {
+            try {
+                chunkStorage.saveSeed();
+            } catch (IOException e) {
+                System.err.println("Failed to save world seed: " + e.getMessage());
+            }
+        }
+        
+        this.viewDistance = config.world.viewDistance;
+        int threads = config.world.chunkWorkerThreads > 0 ? config.world.chunkWorkerThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.prefetchSeconds = config.world.prefetchSeconds;
+        
+        // 视锥水平半角：由垂直视野和默认窗口宽高比计算，再留出余量覆盖转头
+        float aspect = (float) config.window.defaultWidth / config.window.defaultHeight;
+        float frustumHalfAngle = (float) Math.toDegrees(Math.atan(Math.tan(Math.toRadians(config.render.fov / 2.0)) * aspect)) + 15.0f;
+        this.scheduler = new ChunkTaskScheduler(threads, frustumHalfAngle);
+        this.pendingLoads = new HashMap<>();
+        this.completedLoads = new ConcurrentLinkedQueue<>();
+        this.failedLoads = new ConcurrentLinkedQueue<>();
+        this.loadFailures = new HashMap<>();
+    }
+    
+    /**
+     * 更新区块加载状态（玩家移动、转向或速度变化后调用）
+     *
+     * 除了玩家周围视距内的区块，还会加载预测位置（当前速度 × 预读时间）周围视距内的区块，
+     * 这样快速飞行或冲刺时前方的区块在进入视距之前就已经加载完成。
+     * 进入新区块（或预测位置进入新区块）时提交缺失区块的加载任务并取消不再需要的任务，
+     * 每次调用都会按新的位置、速度和视线方向重新计算排队任务的优先级。
+     */
+    public void updateChunks(float playerX, float playerZ, float lookX, float lookZ,
+                             float velocityX, float velocityZ) {
+        // 预测位移，最远不超过视距
+        float aheadX = velocityX * prefetchSeconds;
+        float aheadZ = velocityZ * prefetchSeconds;
+        float aheadLength = (float) Math.sqrt(aheadX * aheadX + aheadZ * aheadZ);
+        float maxAhead = viewDistance * Chunk.CHUNK_SIZE;
+        if (aheadLength > maxAhead) {
+            aheadX *= maxAhead / aheadLength;
+            aheadZ *= maxAhead / aheadLength;
+        }
+        scheduler.setFocus(playerX, playerZ, lookX, lookZ, aheadX, aheadZ);
+        
+        int centerX = worldToChunkCoord((int) Math.floor(playerX));
+        int centerZ = worldToChunkCoord((int) Math.floor(playerZ));
+        int predictedX = worldToChunkCoord((int) Math.floor(playerX + aheadX));
+        int predictedZ = worldToChunkCoord((int) Math.floor(playerZ + aheadZ));
+        if (centerX != lastCenterChunkX || centerZ != lastCenterChunkZ ||
+            predictedX != lastPredictedChunkX || predictedZ != lastPredictedChunkZ) {
+            lastCenterChunkX = centerX;
+            lastCenterChunkZ = centerZ;
+            lastPredictedChunkX = predictedX;
+            lastPredictedChunkZ = predictedZ;
+            cancelUnwantedLoads();
+            scheduleMissingChunks(centerX, centerZ);
+            if (predictedX != centerX || predictedZ != centerZ) {
+                scheduleMissingChunks(predictedX, predictedZ);
+            }
+        }
+        
+        if (!pendingLoads.isEmpty()) {
+            scheduler.reprioritize();
+        }
+    }
+    
+    /**
+     * 为指定中心视距内尚未加载的区块提交后台加载任务
+     */
+    private void scheduleMissingChunks(int centerX, int centerZ) {
+        for (int x = centerX - viewDistance; x <= centerX + viewDistance; x++) {
+            for (int z = centerZ - viewDistance; z <= centerZ + viewDistance; z++) {
+                if (!isValidChunk(x, z) || !isInViewDistance(x, z, centerX, centerZ)) {
+                    continue;
+                }
+                String chunkKey = getChunkKey(x, z);
+                if (loadedChunks.containsKey(chunkKey) || pendingLoads.containsKey(chunkKey) ||
+                    loadFailures.getOrDefault(chunkKey, 0) >= MAX_LOAD_ATTEMPTS) {
+                    continue;
+                }
+                submitLoad(x, z);
+            }
+        }
+    }
+    
+    /**
+     * 提交区块的后台加载任务
+     */
+    private void submitLoad(int chunkX, int chunkZ) {
+        pendingLoads.put(getChunkKey(chunkX, chunkZ), scheduler.submit(chunkX, chunkZ,
+                () -> completedLoads.add(createChunk(chunkX, chunkZ)), failedLoads::add));
+    }
+    
+    /**
+     * 取消既不在玩家视距内、也不在预测位置视距内的加载任务
+     */
+    private void cancelUnwantedLoads() {
+        Iterator<ChunkTaskScheduler.ChunkTask> iterator = pendingLoads.values().iterator();
+        while (iterator.hasNext()) {
+            ChunkTaskScheduler.ChunkTask task = iterator.next();
+            if (!isInViewDistance(task.chunkX, task.chunkZ, lastCenterChunkX, lastCenterChunkZ) &&
+                !isInViewDistance(task.chunkX, task.chunkZ, lastPredictedChunkX, lastPredictedChunkZ)) {
+                scheduler.cancel(task);
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * 将后台加载完成的区块加入世界（在主线程调用）
+     * @return 本次加入的区块列表
+     */
+    public List<Chunk> integrateLoadedChunks() {
+        handleFailedLoads();
+        
+        List<Chunk> added = new ArrayList<>();
+        Chunk chunk;
+        while ((chunk = completedLoads.poll()) != null) {
+            String chunkKey = getChunkKey(chunk.getChunkX(), chunk.getChunkZ());
+            ChunkTaskScheduler.ChunkTask task = pendingLoads.remove(chunkKey);
+            // 任务已被取消（区块超出视距）或区块已被同步加载时丢弃结果
+            if (task == null || loadedChunks.containsKey(chunkKey)) {
+                continue;
+            }
+            scheduler.cancel(task); // 同一区块可能重新提交过，确保不会再执行一次
+            loadedChunks.put(chunkKey, chunk);
+            chunk.setDirtyListener(chunkDirtyListener);
+            markNeighborsDirty(chunk.getChunkX(), chunk.getChunkZ());
+            added.add(chunk);
+            System.out.println("Loaded island chunk: " + chunk + " (Total loaded: " + loadedChunks.size() + ")");
+        }
+        return added;
+    }
+    
+    /**
+     * 清除加载失败的任务记录，仍在视距内的区块立即重新提交（每个区块最多尝试MAX_LOAD_ATTEMPTS次）
+     */
+    private void handleFailedLoads() {
+        ChunkTaskScheduler.ChunkTask task;
+        while ((task = failedLoads.poll()) != null) {
+            String chunkKey = getChunkKey(task.chunkX, task.chunkZ);
+            if (pendingLoads.get(chunkKey) != task) {
+                continue; // 任务已被取消或替换
+            }
+            pendingLoads.remove(chunkKey);
+            int failures = loadFailures.merge(chunkKey, 1, Integer::sum);
+            if (failures >= MAX_LOAD_ATTEMPTS) {
+                System.err.println("Giving up loading chunk (" + task.chunkX + ", " + task.chunkZ + ") after " +
+                                   failures + " failed attempts");
+            } else if (isInViewDistance(task.chunkX, task.chunkZ, lastCenterChunkX, lastCenterChunkZ) ||
+                       isInViewDistance(task.chunkX, task.chunkZ, lastPredictedChunkX, lastPredictedChunkZ)) {
+                submitLoad(task.chunkX, task.chunkZ); // 玩家静止时不会再调用updateChunks，不能等它补交
+            }
+        }
+    }
+    
+    /**
+     * 读取存档目录中保存的世界种子，没有存档目录、没有保存或读取失败时返回null
+     */
+    private static Long loadSavedSeed(String saveDirectory) {
+        if (saveDirectory == null) {
+            return null;
+        }
+        try {
+            return ChunkStorage.loadSeed(saveDirectory);
+        } catch (IOException e) {
+            System.err.println("Failed to read world seed, using a new one: " + e.getMessage());
+            return null;
+        }
     }
     
     /**
-     * 更新区块加载状态（对于固定空岛，这个方法不需要做任何事）
+     * 检查区块是否在视距内（圆形范围）
      */
-    public void updateChunks(float playerX, float playerZ) {
-        // 固定空岛不需要动态加载，所以这个方法为空
+    private boolean isInViewDistance(int chunkX, int chunkZ, int centerX, int centerZ) {
+        int dx = chunkX - centerX;
+        int dz = chunkZ - centerZ;
+        return dx * dx + dz * dz <= viewDistance * viewDistance;
     }
     
     /**
@@ -66,74 +271,47 @@ public class ChunkManager {
             return loadedChunks.get(chunkKey);
         }
         
-        // 创建新区块
-        Chunk chunk = new Chunk(chunkX, chunkZ);
+        Chunk chunk = createChunk(chunkX, chunkZ);
         
-        // 生成空岛地形
-        generateIslandTerrain(chunk);
+        // 同步加载后不再需要后台任务
+        ChunkTaskScheduler.ChunkTask pending = pendingLoads.remove(chunkKey);
+        if (pending != null) {
+            scheduler.cancel(pending);
+        }
         
         loadedChunks.put(chunkKey, chunk);
+        chunk.setDirtyListener(chunkDirtyListener);
+        markNeighborsDirty(chunkX, chunkZ);
         System.out.println("Loaded island chunk: " + chunk + " (Total loaded: " + loadedChunks.size() + ")");
         
         return chunk;
     }
     
     /**
-     * 生成空岛地形
-     */
-    private void generateIslandTerrain(Chunk chunk) {
-        int chunkX = chunk.getChunkX();
-        int chunkZ = chunk.getChunkZ();
-        
-        // 计算空岛中心坐标
-        float centerX = (ISLAND_MAX_CHUNK + ISLAND_MIN_CHUNK) * 0.5f * Chunk.CHUNK_SIZE + Chunk.CHUNK_SIZE / 2.0f;
-        float centerZ = (ISLAND_MAX_CHUNK + ISLAND_MIN_CHUNK) * 0.5f * Chunk.CHUNK_SIZE + Chunk.CHUNK_SIZE / 2.0f;
-        
-        for (int x = 0; x < Chunk.CHUNK_SIZE; x++) {
-            for (int z = 0; z < Chunk.CHUNK_SIZE; z++) {
-                int worldX = chunkX * Chunk.CHUNK_SIZE + x;
-                int worldZ = chunkZ * Chunk.CHUNK_SIZE + z;
-                
-                // 计算到空岛中心的距离
-                float distanceToCenter = (float) Math.sqrt(
-                    Math.pow(worldX - centerX, 2) + Math.pow(worldZ - centerZ, 2)
-                );
-                
-                // 检查是否在水池区域内（中心附近5格半径）
-                if (distanceToCenter <= 5.0f) {
-                    // 创建水池：在地面高度放置水方块，替换草方块
-                    chunk.setBlock(worldX, 0, worldZ, Block.BlockType.STONE);    // 底层：圆石
-                    chunk.setBlock(worldX, 1, worldZ, Block.BlockType.DIRT);     // 第二层：泥块
-                    chunk.setBlock(worldX, 2, worldZ, Block.BlockType.DIRT);     // 第三层：泥块
-                    chunk.setBlock(worldX, 3, worldZ, Block.BlockType.WATER);    // 顶层：水方块（替换草方块）
-                } else if (distanceToCenter <= 24) {
-                    // 核心区域：完整地形
-                    generateFullTerrain(chunk, worldX, worldZ);
-                } else if (distanceToCenter <= 28) {
-                    // 边缘区域：随机生成，形成自然边缘
-                    float edgeChance = (28 - distanceToCenter) / 4.0f; // 0到1的渐变
-                    if (Math.random() < edgeChance) {
-                        generateFullTerrain(chunk, worldX, worldZ);
-                    }
-                }
-                // 超出28格的区域保持空气
-            }
+     * 创建区块：优先读取预生成的区块，否则生成空岛地形（可在后台线程调用）
+     */
+    private Chunk createChunk(int chunkX, int chunkZ) {
+        Chunk chunk = readChunk(chunkX, chunkZ);
+        if (chunk == null) {
+            chunk = new Chunk(chunkX, chunkZ);
+            terrainGenerator.generate(chunk);
         }
-        
-        // 在空岛上生成少量树木
-        TreeGenerator.generateRandomTrees(chunk, 1.0f); // 降低树木密度
-        
-        System.out.println("Generated island terrain for chunk (" + chunkX + ", " + chunkZ + ")");
+        return chunk;
     }
     
     /**
-     * 生成完整地形层
+     * 从存档读取区块（不存在或读取失败时返回null）
      */
-    private void generateFullTerrain(Chunk chunk, int worldX, int worldZ) {
-        chunk.setBlock(worldX, 0, worldZ, Block.BlockType.STONE);    // 底层：圆石
-        chunk.setBlock(worldX, 1, worldZ, Block.BlockType.DIRT);     // 第二层：泥块
-        chunk.setBlock(worldX, 2, worldZ, Block.BlockType.DIRT);     // 第三层：泥块  
-        chunk.setBlock(worldX, 3, worldZ, Block.BlockType.GRASS);    // 顶层：草方块
+    private Chunk readChunk(int chunkX, int chunkZ) {
+        if (chunkStorage == null) {
+            return null;
+        }
+        try {
+            return chunkStorage.load(chunkX, chunkZ);
+        } catch (IOException e) {
+            System.err.println("Failed to read chunk (" + chunkX + ", " + chunkZ + "), regenerating: " + e.getMessage());
+            return null;
+        }
     }
     
     /**
@@ -174,6 +352,7 @@ public class ChunkManager {
         Chunk chunk = getChunkByWorldPos(worldX, worldZ);
         if (chunk != null) {
             chunk.setBlock(worldX, worldY, worldZ, type);
+            markBorderNeighborsDirty(worldX, worldZ);
             return true;
         }
         return false;
@@ -184,8 +363,9 @@ public class ChunkManager {
      */
     public boolean addBlock(int worldX, int worldY, int worldZ, Block.BlockType type) {
         Chunk chunk = getChunkByWorldPos(worldX, worldZ);
-        if (chunk != null) {
-            return chunk.addBlock(worldX, worldY, worldZ, type);
+        if (chunk != null && chunk.addBlock(worldX, worldY, worldZ, type)) {
+            markBorderNeighborsDirty(worldX, worldZ);
+            return true;
         }
         return false; // 空岛范围外不允许添加方块
     }
@@ -195,12 +375,53 @@ public class ChunkManager {
      */
     public boolean removeBlock(int worldX, int worldY, int worldZ) {
         Chunk chunk = getChunkByWorldPos(worldX, worldZ);
-        if (chunk != null) {
-            return chunk.removeBlock(worldX, worldY, worldZ);
+        if (chunk != null && chunk.removeBlock(worldX, worldY, worldZ)) {
+            markBorderNeighborsDirty(worldX, worldZ);
+            return true;
         }
         return false;
     }
     
+    /**
+     * 方块位于区块边缘时，相邻区块朝向它的面和靠近它的顶点AO也会变化，需要一起标记为脏
+     * （位于区块角上时对角的区块也受AO影响）
+     */
+    private void markBorderNeighborsDirty(int worldX, int worldZ) {
+        int chunkX = worldToChunkCoord(worldX);
+        int chunkZ = worldToChunkCoord(worldZ);
+        int localX = worldX - chunkX * Chunk.CHUNK_SIZE;
+        int localZ = worldZ - chunkZ * Chunk.CHUNK_SIZE;
+        int dx = localX == 0 ? -1 : localX == Chunk.CHUNK_SIZE - 1 ? 1 : 0;
+        int dz = localZ == 0 ? -1 : localZ == Chunk.CHUNK_SIZE - 1 ? 1 : 0;
+        
+        if (dx != 0) markChunkDirty(chunkX + dx, chunkZ);
+        if (dz != 0) markChunkDirty(chunkX, chunkZ + dz);
+        if (dx != 0 && dz != 0) markChunkDirty(chunkX + dx, chunkZ + dz);
+    }
+    
+    /**
+     * 新区块加入后，周围八个区块朝向它的边界面和AO需要重新计算
+     */
+    private void markNeighborsDirty(int chunkX, int chunkZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (dx != 0 || dz != 0) {
+                    markChunkDirty(chunkX + dx, chunkZ + dz);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 标记已加载的区块为脏（未加载时忽略）
+     */
+    private void markChunkDirty(int chunkX, int chunkZ) {
+        Chunk chunk = loadedChunks.get(getChunkKey(chunkX, chunkZ));
+        if (chunk != null) {
+            chunk.markDirty();
+        }
+    }
+    
     /**
      * 世界坐标转换为区块坐标
      */
@@ -215,6 +436,16 @@ public class ChunkManager {
         return chunkX + "," + chunkZ;
     }
     
+    /**
+     * 设置脏区块监听者（之后加入世界的区块都会使用它）
+     */
+    public void setChunkDirtyListener(Chunk.DirtyListener listener) {
+        this.chunkDirtyListener = listener;
+        for (Chunk chunk : loadedChunks.values()) {
+            chunk.setDirtyListener(listener);
+        }
+    }
+    
     /**
      * 获取所有已加载的区块
      */
@@ -223,28 +454,43 @@ public class ChunkManager {
     }
     
     /**
-     * 初始化空岛（一次性加载所有4x4区块）
+     * 初始化空岛（同步加载玩家视距内的区块）
      */
     public void loadInitialChunks(float playerX, float playerZ) {
         if (isInitialized) {
             return; // 已经初始化过了
         }
         
-        // 加载整个4x4空岛
+        // 同步加载视距内的空岛区块，视距外的区块在玩家靠近时由后台线程加载
+        int centerX = worldToChunkCoord((int) Math.floor(playerX));
+        int centerZ = worldToChunkCoord((int) Math.floor(playerZ));
         for (int x = ISLAND_MIN_CHUNK; x <= ISLAND_MAX_CHUNK; x++) {
             for (int z = ISLAND_MIN_CHUNK; z <= ISLAND_MAX_CHUNK; z++) {
-                loadChunk(x, z);
+                if (isInViewDistance(x, z, centerX, centerZ)) {
+                    loadChunk(x, z);
+                }
             }
         }
         
         isInitialized = true;
-        System.out.println("Loaded complete 4x4 island (" + ISLAND_SIZE + "x" + ISLAND_SIZE + " chunks)");
+        System.out.println("Loaded initial island chunks (" + loadedChunks.size() + " of " + ISLAND_SIZE + "x" + ISLAND_SIZE + " chunks)");
     }
     
     /**
      * 获取统计信息
      */
     public String getStats() {
-        return "Island chunks: " + loadedChunks.size() + "/" + (ISLAND_SIZE * ISLAND_SIZE);
+        return "Island chunks: " + loadedChunks.size() + "/" + (ISLAND_SIZE * ISLAND_SIZE) +
+               ", pending loads: " + pendingLoads.size();
+    }
+    
+    /**
+     * 停止后台加载线程
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        pendingLoads.clear();
+        completedLoads.clear();
+        failedLoads.clear();
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.tsian.world;
+
+/**
+ * 区块分段 - 区块中高度为16格的一段（16x16x16）
+ *
+ * 负责：
+ * - 用数组保存分段内每个位置的方块类型
+ * - 维护按行排列的占用位掩码（不透明、每种透明方块各一组），供位运算面剔除使用
+ * - 保存分段的压缩可见面列表（由World在区块变脏后重新计算）
+ *
+ * 掩码按行存储：行号 row = localY * 16 + localZ，行内第localX位表示该位置是否被占用，
+ * 每行只使用int的低16位。
+ */
+public class ChunkSection {
+    
+    public static final int SIZE = 16; // 分段边长
+    public static final int ROWS = SIZE * SIZE; // 每组掩码的行数
+    public static final int VOLUME = SIZE * SIZE * SIZE;
+    public static final int ROW_MASK = 0xFFFF; // 一行的有效位
+    
+    public static final int TRANSPARENT_CLASSES = 2; // 透明方块种类数（水、树叶）
+    
+    private final int sectionY; // 分段的Y索引（世界Y / 16）
+    private final byte[] blockIds; // 方块类型ID，索引为 (y * 16 + z) * 16 + x
+    private final int[] opaqueRows; // 不透明方块占用掩码
+    private final int[][] transparentRows; // 每种透明方块的占用掩码
+    private int blockCount; // 非空气方块数
+    private final PackedFaceList visibleFaces; // 分段内方块的可见面
+    
+    public ChunkSection(int sectionY) {
+        this.sectionY = sectionY;
+        this.blockIds = new byte[VOLUME];
+        this.opaqueRows = new int[ROWS];
+        this.transparentRows = new int[TRANSPARENT_CLASSES][ROWS];
+        this.visibleFaces = new PackedFaceList();
+    }
+    
+    /**
+     * 设置分段内某个位置的方块类型（局部坐标）
+     */
+    public void setBlock(int localX, int localY, int localZ, Block.BlockType type) {
+        int index = getIndex(localX, localY, localZ);
+        Block.BlockType oldType = Block.BlockType.fromId(blockIds[index]);
+        if (oldType == type) {
+            return;
+        }
+        
+        int row = localY * SIZE + localZ;
+        int bit = 1 << localX;
+        
+        // 清除旧类型的占用位
+        if (oldType != Block.BlockType.AIR) {
+            blockCount--;
+            int oldClass = getTransparentClass(oldType);
+            if (oldClass >= 0) {
+                transparentRows[oldClass][row] &= ~bit;
+            } else {
+                opaqueRows[row] &= ~bit;
+            }
+        }
+        
+        // 设置新类型的占用位
+        if (type != Block.BlockType.AIR) {
+            blockCount++;
+            int newClass = getTransparentClass(type);
+            if (newClass >= 0) {
+                transparentRows[newClass][row] |= bit;
+            } else {
+                opaqueRows[row] |= bit;
+            }
+        }
+        
+        blockIds[index] = (byte) type.getId();
+    }
+    
+    /**
+     * 获取分段内某个位置的方块类型（局部坐标）
+     */
+    public Block.BlockType getBlockType(int localX, int localY, int localZ) {
+        return Block.BlockType.fromId(blockIds[getIndex(localX, localY, localZ)]);
+    }
+    
+    /**
+     * 获取透明方块的种类编号，不透明方块和空气返回-1
+     * 同种透明方块之间的面互相剔除，不同种之间的面保留
+     */
+    public static int getTransparentClass(Block.BlockType type) {
+        switch (type) {
+            case WATER: return 0;
+            case LEAVES: return 1;
+            default: return -1;
+        }
+    }
+    
+    /**
+     * 把X方向连续的一段方块类型ID复制到dest（用于后台线程读取的快照）
+     */
+    void copyBlockIds(int localX, int localY, int localZ, byte[] dest, int destPos, int length) {
+        System.arraycopy(blockIds, getIndex(localX, localY, localZ), dest, destPos, length);
+    }
+    
+    private static int getIndex(int localX, int localY, int localZ) {
+        return (localY * SIZE + localZ) * SIZE + localX;
+    }
+    
+    public int getSectionY() { return sectionY; }
+    public int getBlockCount() { return blockCount; }
+    public boolean isEmpty() { return blockCount == 0; }
+    public PackedFaceList getVisibleFaces() { return visibleFaces; }
+    
+    /**
+     * 不透明方块占用掩码（直接返回内部数组，调用者不得修改）
+     */
+    public int[] getOpaqueRows() { return opaqueRows; }
+    
+    /**
+     * 某种透明方块的占用掩码（直接返回内部数组，调用者不得修改）
+     */
+    public int[] getTransparentRows(int transparentClass) { return transparentRows[transparentClass]; }
+}
@@ -0,0 +1,168 @@
+package com.tsian.world;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 区块存储 - 负责区块的磁盘序列化
+ *
+ * 每个区块保存为一个独立的压缩文件（chunk_X_Z.dat），
+ * 不同区块的读写互不影响，可以在多个线程中并行调用。
+ * 文件头记录生成区块的世界种子，种子不同的存档（如换种子后目录中残留的预生成区块）视为不存在。
+ * 世界种子另外保存在存档目录的seed.txt中，配置未指定种子时启动游戏会复用它。
+ */
+public class ChunkStorage {
+    
+    private static final int MAGIC = 0x4D434348; // "MCCH"
+    private static final int VERSION = 2; // 版本2在文件头中加入世界种子
+    private static final String SEED_FILE = "seed.txt";
+    
+    private final File directory; // 存档目录
+    private final long seed; // 世界种子，只读取同一种子的区块
+    
+    public ChunkStorage(String directoryPath, long seed) {
+        this.directory = new File(directoryPath);
+        this.seed = seed;
+    }
+    
+    /**
+     * 读取存档目录中保存的世界种子，没有保存时返回null
+     * @throws IOException 种子文件无法读取或格式错误
+     */
+    public static Long loadSeed(String directoryPath) throws IOException {
+        File file = new File(directoryPath, SEED_FILE);
+        if (!file.isFile()) {
+            return null;
+        }
+        String text = Files.readString(file.toPath(), StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid world seed \"" + text + "\": " + file);
+        }
+    }
+    
+    /**
+     * 把世界种子写入存档目录，供下次启动复用
+     */
+    public void saveSeed() throws IOException {
+        if (!directory.exists() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Failed to create save directory: " + directory);
+        }
+        Files.writeString(new File(directory, SEED_FILE).toPath(), Long.toString(seed), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 保存区块（只写入非空气方块）
+     */
+    public void save(Chunk chunk) throws IOException {
+        if (!directory.exists() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Failed to create save directory: " + directory);
+        }
+        
+        List<Block> blocks = new ArrayList<>();
+        for (Block block : chunk.getBlocks().values()) {
+            if (block.getType() != Block.BlockType.AIR) {
+                blocks.add(block);
+            }
+        }
+        
+        File target = getChunkFile(chunk.getChunkX(), chunk.getChunkZ());
+        File temp = new File(directory, target.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(temp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeInt(chunk.getChunkX());
+            out.writeInt(chunk.getChunkZ());
+            out.writeInt(blocks.size());
+            
+            int originX = chunk.getChunkX() * Chunk.CHUNK_SIZE;
+            int originZ = chunk.getChunkZ() * Chunk.CHUNK_SIZE;
+            for (Block block : blocks) {
+                out.writeByte(block.getX() - originX);
+                out.writeInt(block.getY());
+                out.writeByte(block.getZ() - originZ);
+                out.writeByte(block.getType().getId());
+            }
+        }
+        
+        // 先写临时文件再替换，避免读到写了一半的区块
+        if (!temp.renameTo(target)) {
+            if (!target.delete() || !temp.renameTo(target)) {
+                throw new IOException("Failed to replace chunk file: " + target);
+            }
+        }
+    }
+    
+    /**
+     * 读取区块，文件不存在或由其他种子生成时返回null（调用方重新生成）
+     * @throws IOException 文件损坏或版本不支持
+     */
+    public Chunk load(int chunkX, int chunkZ) throws IOException {
+        File file = getChunkFile(chunkX, chunkZ);
+        if (!file.isFile()) {
+            return null;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a chunk file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported chunk file version " + version + ": " + file);
+            }
+            long fileSeed = in.readLong();
+            if (fileSeed != seed) {
+                return null;
+            }
+            if (in.readInt() != chunkX || in.readInt() != chunkZ) {
+                throw new IOException("Chunk coordinates mismatch: " + file);
+            }
+            
+            Chunk chunk = new Chunk(chunkX, chunkZ);
+            int originX = chunkX * Chunk.CHUNK_SIZE;
+            int originZ = chunkZ * Chunk.CHUNK_SIZE;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int localX = in.readByte();
+                int y = in.readInt();
+                int localZ = in.readByte();
+                Block.BlockType type = Block.BlockType.fromId(in.readByte());
+                chunk.setBlock(originX + localX, y, originZ + localZ, type);
+            }
+            return chunk;
+        }
+    }
+    
+    /**
+     * 检查区块是否已保存
+     */
+    public boolean exists(int chunkX, int chunkZ) {
+        return getChunkFile(chunkX, chunkZ).isFile();
+    }
+    
+    /**
+     * 获取区块文件路径
+     */
+    private File getChunkFile(int chunkX, int chunkZ) {
+        return new File(directory, "chunk_" + chunkX + "_" + chunkZ + ".dat");
+    }
+    
+    public File getDirectory() { return directory; }
+}
@@ -0,0 +1,212 @@
+package com.tsian.world;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 区块任务调度器 - 在后台线程中按优先级执行区块任务（加载、生成等）
+ *
+ * 负责：
+ * - 根据玩家位置和视线方向计算任务优先级（数值越小越先执行）
+ * - 玩家移动后重新计算所有排队任务的优先级
+ * - 取消已经不再需要的任务，使其不会被执行
+ * - 任务抛出异常时通知提交者，使其可以清理记录并重新提交
+ *
+ * 优先级只在主线程中修改，且修改时任务不在队列中，因此队列顺序始终一致。
+ */
+public class ChunkTaskScheduler {
+    
+    private final PriorityBlockingQueue<ChunkTask> queue; // 等待执行的任务
+    private final List<Thread> workers; // 工作线程
+    private final AtomicLong sequence = new AtomicLong(); // 相同优先级时按提交顺序执行
+    private volatile boolean running = true;
+    
+    // 当前的优先级参考点（玩家位置、水平视线方向和预测的移动路径）
+    private float focusX, focusZ;
+    private float lookX = 0.0f, lookZ = -1.0f;
+    private float aheadX, aheadZ; // 从玩家位置到预测位置的位移
+    private final float frustumCos; // 视锥水平半角（含余量）的余弦
+    
+    public ChunkTaskScheduler(int threadCount) {
+        this(threadCount, 60.0f);
+    }
+    
+    /**
+     * @param frustumHalfAngle 视锥水平半角（度），视锥内的区块优先加载
+     */
+    public ChunkTaskScheduler(int threadCount, float frustumHalfAngle) {
+        this(threadCount, frustumHalfAngle, "chunk-worker");
+    }
+    
+    /**
+     * @param frustumHalfAngle 视锥水平半角（度），视锥内的区块优先加载
+     * @param threadName 工作线程名前缀
+     */
+    public ChunkTaskScheduler(int threadCount, float frustumHalfAngle, String threadName) {
+        this.frustumCos = (float) Math.cos(Math.toRadians(frustumHalfAngle));
+        this.queue = new PriorityBlockingQueue<>();
+        this.workers = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread worker = new Thread(this::workerLoop, threadName + "-" + i);
+            worker.setDaemon(true);
+            worker.setPriority(Thread.NORM_PRIORITY - 1);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    /**
+     * 更新优先级参考点（不会自动重排，需要调用reprioritize）
+     * @param aheadX 预测位置相对玩家的X位移（速度 × 预读时间）
+     * @param aheadZ 预测位置相对玩家的Z位移
+     */
+    public void setFocus(float playerX, float playerZ, float lookX, float lookZ, float aheadX, float aheadZ) {
+        this.focusX = playerX;
+        this.focusZ = playerZ;
+        this.aheadX = aheadX;
+        this.aheadZ = aheadZ;
+        float length = (float) Math.sqrt(lookX * lookX + lookZ * lookZ);
+        if (length > 1e-4f) {
+            this.lookX = lookX / length;
+            this.lookZ = lookZ / length;
+        }
+    }
+    
+    /**
+     * 提交区块任务
+     * @param onFailure 任务抛出异常时在工作线程中调用，参数为失败的任务，可以为null
+     */
+    public ChunkTask submit(int chunkX, int chunkZ, Runnable work, Consumer<ChunkTask> onFailure) {
+        ChunkTask task = new ChunkTask(chunkX, chunkZ, work, onFailure, sequence.getAndIncrement());
+        task.priority = computePriority(chunkX, chunkZ);
+        queue.add(task);
+        return task;
+    }
+    
+    /**
+     * 取消任务（尚未开始执行的任务不会再执行）
+     */
+    public void cancel(ChunkTask task) {
+        task.cancelled = true;
+        queue.remove(task);
+    }
+    
+    /**
+     * 按当前参考点重新计算所有排队任务的优先级
+     */
+    public void reprioritize() {
+        List<ChunkTask> pending = new ArrayList<>(queue.size());
+        queue.drainTo(pending);
+        for (ChunkTask task : pending) {
+            task.priority = computePriority(task.chunkX, task.chunkZ);
+        }
+        queue.addAll(pending);
+    }
+    
+    /**
+     * 计算区块任务的优先级（数值越小越先执行，单位为区块）
+     *
+     * 基础值是区块到预测移动路径（玩家位置到预测位置的线段）的距离，
+     * 加上沿路径方向距离的一半，因此移动方向上的区块比同距离的侧面区块先加载；
+     * 再按视线方向加权：视锥内0.75，视锥外从1（侧面）到2（正后方）。
+     */
+    private float computePriority(int chunkX, int chunkZ) {
+        float dx = (chunkX + 0.5f) * Chunk.CHUNK_SIZE - focusX;
+        float dz = (chunkZ + 0.5f) * Chunk.CHUNK_SIZE - focusZ;
+        
+        // 投影到预测路径上
+        float aheadLengthSq = aheadX * aheadX + aheadZ * aheadZ;
+        float t = 0.0f;
+        if (aheadLengthSq > 1e-4f) {
+            t = Math.max(0.0f, Math.min(1.0f, (dx * aheadX + dz * aheadZ) / aheadLengthSq));
+        }
+        float offX = dx - aheadX * t;
+        float offZ = dz - aheadZ * t;
+        float along = t * (float) Math.sqrt(aheadLengthSq);
+        float base = ((float) Math.sqrt(offX * offX + offZ * offZ) + 0.5f * along) / Chunk.CHUNK_SIZE;
+        
+        float distance = (float) Math.sqrt(dx * dx + dz * dz);
+        if (distance < 1e-4f) {
+            return base;
+        }
+        float facing = (dx * lookX + dz * lookZ) / distance; // -1(背后) 到 1(正前方)
+        float weight = facing >= frustumCos ? 0.75f : 1.5f - 0.5f * facing;
+        return base * weight;
+    }
+    
+    /**
+     * 工作线程主循环
+     */
+    private void workerLoop() {
+        while (running) {
+            ChunkTask task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task.cancelled) {
+                continue;
+            }
+            try {
+                task.work.run();
+            } catch (Exception e) {
+                System.err.println("Chunk task failed for (" + task.chunkX + ", " + task.chunkZ + "): " + e.getMessage());
+                e.printStackTrace();
+                if (task.onFailure != null) {
+                    task.onFailure.accept(task);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 获取排队中的任务数
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+    
+    /**
+     * 停止所有工作线程
+     */
+    public void shutdown() {
+        running = false;
+        queue.clear();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+    
+    /**
+     * 区块任务
+     */
+    public static class ChunkTask implements Comparable<ChunkTask> {
+        public final int chunkX, chunkZ;
+        private final Runnable work;
+        private final Consumer<ChunkTask> onFailure; // 任务失败时的通知，可以为null
+        private final long sequence;
+        private float priority;
+        private volatile boolean cancelled;
+        
+        private ChunkTask(int chunkX, int chunkZ, Runnable work, Consumer<ChunkTask> onFailure, long sequence) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.work = work;
+            this.onFailure = onFailure;
+            this.sequence = sequence;
+        }
+        
+        public boolean isCancelled() { return cancelled; }
+        public float getPriority() { return priority; }
+        
+        @Override
+        public int compareTo(ChunkTask other) {
+            int result = Float.compare(priority, other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
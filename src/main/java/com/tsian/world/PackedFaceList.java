@@ -0,0 +1,72 @@
+package com.tsian.world;
+
+import java.util.Arrays;
+
+/**
+ * 压缩可见面列表 - 每个可见面压缩为一个int，存放在可增长的int数组中
+ *
+ * 位布局（低位在前）：
+ * - 0-3   分段内局部X
+ * - 4-7   分段内局部Y
+ * - 8-11  分段内局部Z
+ * - 12-14 面方向（0=+Z 1=-Z 2=-X 3=+X 4=+Y 5=-Y）
+ * - 16-23 方块类型ID
+ *
+ * 重建时调用clear()复用已有数组，不会为每个面创建对象。
+ */
+public class PackedFaceList {
+    
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private int[] faces;
+    private int size;
+    
+    public PackedFaceList() {
+        this.faces = new int[INITIAL_CAPACITY];
+    }
+    
+    /**
+     * 压缩一个可见面
+     */
+    public static int pack(int localX, int localY, int localZ, int face, int blockId) {
+        return localX | (localY << 4) | (localZ << 8) | (face << 12) | (blockId << 16);
+    }
+    
+    public static int localX(int packed) { return packed & 0xF; }
+    public static int localY(int packed) { return (packed >>> 4) & 0xF; }
+    public static int localZ(int packed) { return (packed >>> 8) & 0xF; }
+    public static int face(int packed) { return (packed >>> 12) & 0x7; }
+    public static int blockId(int packed) { return (packed >>> 16) & 0xFF; }
+    
+    /**
+     * 添加一个压缩后的面
+     */
+    public void add(int packed) {
+        if (size == faces.length) {
+            faces = Arrays.copyOf(faces, size * 2);
+        }
+        faces[size++] = packed;
+    }
+    
+    public int get(int index) {
+        return faces[index];
+    }
+    
+    public int size() { return size; }
+    
+    /**
+     * 复制当前的面（用于后台线程读取的快照）
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(faces, size);
+    }
+    
+    public boolean isEmpty() { return size == 0; }
+    
+    /**
+     * 清空列表（保留已分配的容量）
+     */
+    public void clear() {
+        size = 0;
+    }
+}
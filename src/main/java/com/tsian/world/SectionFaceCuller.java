@@ -0,0 +1,91 @@
+package com.tsian.world;
+
+/**
+ * 分段面剔除器 - 用占用位掩码一次计算整个分段的可见面
+ *
+ * 对每个方向先把相邻位置的占用掩码整体平移到当前位置（X方向在行内移位，
+ * Z和Y方向按行偏移，边界处取相邻分段的对应行），然后逐行做与/非运算：
+ * - 不透明方块：相邻位置不是不透明方块时可见
+ * - 透明方块：相邻位置既不是不透明方块也不是同种透明方块时可见
+ * 规则与逐方块查询相邻方块的结果一致（测试中的PerBlockFaceVisibility是参考实现）。
+ *
+ * 实例持有临时数组，不是线程安全的，每个线程应使用自己的实例。
+ */
+public class SectionFaceCuller {
+    
+    private static final int SIZE = ChunkSection.SIZE;
+    private static final int ROWS = ChunkSection.ROWS;
+    
+    private final int[] neighborOpaque = new int[ROWS]; // 平移后的相邻不透明掩码
+    private final int[] neighborClass = new int[ROWS]; // 平移后的相邻透明方块掩码
+    
+    /**
+     * 计算分段六个方向的可见面掩码
+     * @param section 要计算的分段
+     * @param neighbors 按面方向索引的相邻分段（0=+Z 1=-Z 2=-X 3=+X 4=+Y 5=-Y），未加载或为空时可以为null
+     * @param visibleRows 输出，visibleRows[face][row]的第x位表示该位置的方块在face方向的面可见
+     */
+    public void cull(ChunkSection section, ChunkSection[] neighbors, int[][] visibleRows) {
+        int[] opaque = section.getOpaqueRows();
+        
+        for (int face = 0; face < 6; face++) {
+            ChunkSection neighbor = neighbors[face];
+            int[] out = visibleRows[face];
+            
+            shiftRows(opaque, neighbor != null ? neighbor.getOpaqueRows() : null, face, neighborOpaque);
+            for (int row = 0; row < ROWS; row++) {
+                out[row] = opaque[row] & ~neighborOpaque[row];
+            }
+            
+            for (int c = 0; c < ChunkSection.TRANSPARENT_CLASSES; c++) {
+                int[] transparent = section.getTransparentRows(c);
+                shiftRows(transparent, neighbor != null ? neighbor.getTransparentRows(c) : null, face, neighborClass);
+                for (int row = 0; row < ROWS; row++) {
+                    out[row] |= transparent[row] & ~(neighborOpaque[row] | neighborClass[row]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 把相邻位置的占用掩码平移到当前位置：out[row]的第x位表示(x, row)在face方向的相邻位置是否被占用
+     */
+    private static void shiftRows(int[] rows, int[] neighborRows, int face, int[] out) {
+        switch (face) {
+            case 0: // +Z：同一Y层的下一行，z=15时取相邻分段的z=0行
+                for (int row = 0; row < ROWS; row++) {
+                    boolean edge = (row & (SIZE - 1)) == SIZE - 1;
+                    out[row] = !edge ? rows[row + 1] : neighborRows != null ? neighborRows[row - (SIZE - 1)] : 0;
+                }
+                break;
+            case 1: // -Z
+                for (int row = 0; row < ROWS; row++) {
+                    boolean edge = (row & (SIZE - 1)) == 0;
+                    out[row] = !edge ? rows[row - 1] : neighborRows != null ? neighborRows[row + (SIZE - 1)] : 0;
+                }
+                break;
+            case 2: // -X：行内左移一位，x=0处补相邻分段的x=15位
+                for (int row = 0; row < ROWS; row++) {
+                    int carry = neighborRows != null ? (neighborRows[row] >>> (SIZE - 1)) & 1 : 0;
+                    out[row] = ((rows[row] << 1) | carry) & ChunkSection.ROW_MASK;
+                }
+                break;
+            case 3: // +X：行内右移一位，x=15处补相邻分段的x=0位
+                for (int row = 0; row < ROWS; row++) {
+                    int carry = neighborRows != null ? (neighborRows[row] & 1) << (SIZE - 1) : 0;
+                    out[row] = (rows[row] >>> 1) | carry;
+                }
+                break;
+            case 4: // +Y：上一层的同一行，y=15时取上方分段的y=0层
+                for (int row = 0; row < ROWS; row++) {
+                    out[row] = row < ROWS - SIZE ? rows[row + SIZE] : neighborRows != null ? neighborRows[row - (ROWS - SIZE)] : 0;
+                }
+                break;
+            case 5: // -Y
+                for (int row = 0; row < ROWS; row++) {
+                    out[row] = row >= SIZE ? rows[row - SIZE] : neighborRows != null ? neighborRows[row + (ROWS - SIZE)] : 0;
+                }
+                break;
+        }
+    }
+}
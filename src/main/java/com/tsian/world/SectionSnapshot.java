@@ -0,0 +1,113 @@
+package com.tsian.world;
+
+/**
+ * 分段快照 - 网格生成所需数据的只读副本，可以在后台线程中使用
+ *
+ * 包含：
+ * - 分段的压缩可见面
+ * - 分段加一圈边界（18x18x18）的方块类型ID，AO只读取这个扁平数组
+ *
+ * 快照在主线程中创建，之后世界的修改不会影响已创建的快照。
+ */
+public class SectionSnapshot {
+    
+    private static final int SIZE = ChunkSection.SIZE;
+    public static final int PADDED_SIZE = SIZE + 2; // 每个方向多一格边界
+    
+    // 按方块类型ID查询是否为实心方块
+    private static final boolean[] SOLID = new boolean[256];
+    
+    static {
+        for (Block.BlockType type : Block.BlockType.values()) {
+            SOLID[type.getId()] = type.isSolid();
+        }
+    }
+    
+    private final int chunkX;
+    private final int sectionY;
+    private final int chunkZ;
+    private final int[] faces; // 压缩可见面（格式同PackedFaceList）
+    private final byte[] blockIds; // 带边界的方块ID，索引 ((y + 1) * 18 + z + 1) * 18 + x + 1，未加载或空分段处为空气
+    
+    private SectionSnapshot(int chunkX, int sectionY, int chunkZ, int[] faces, byte[] blockIds) {
+        this.chunkX = chunkX;
+        this.sectionY = sectionY;
+        this.chunkZ = chunkZ;
+        this.faces = faces;
+        this.blockIds = blockIds;
+    }
+    
+    /**
+     * 创建分段快照（在主线程调用）
+     */
+    public static SectionSnapshot capture(World world, Chunk chunk, ChunkSection section) {
+        int chunkX = chunk.getChunkX();
+        int sectionY = section.getSectionY();
+        int chunkZ = chunk.getChunkZ();
+        
+        // 周围3x3x3个分段，索引 (dy * 3 + dz) * 3 + dx（偏移+1），空分段为null
+        ChunkSection[] neighborhood = new ChunkSection[27];
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    ChunkSection neighbor = dx == 0 && dz == 0 ? chunk.getSection(sectionY + dy)
+                            : world.getSection(chunkX + dx, sectionY + dy, chunkZ + dz);
+                    if (neighbor != null && !neighbor.isEmpty()) {
+                        neighborhood[((dy + 1) * 3 + dz + 1) * 3 + dx + 1] = neighbor;
+                    }
+                }
+            }
+        }
+        
+        // 逐行复制：每行x=-1和x=16来自左右相邻分段，中间16格整段复制
+        byte[] blockIds = new byte[PADDED_SIZE * PADDED_SIZE * PADDED_SIZE];
+        for (int y = -1; y <= SIZE; y++) {
+            int dy = Math.floorDiv(y, SIZE);
+            int localY = y - dy * SIZE;
+            for (int z = -1; z <= SIZE; z++) {
+                int dz = Math.floorDiv(z, SIZE);
+                int localZ = z - dz * SIZE;
+                int rowStart = ((y + 1) * PADDED_SIZE + z + 1) * PADDED_SIZE;
+                int sectionIndex = ((dy + 1) * 3 + dz + 1) * 3 + 1;
+                
+                ChunkSection west = neighborhood[sectionIndex - 1];
+                if (west != null) {
+                    west.copyBlockIds(SIZE - 1, localY, localZ, blockIds, rowStart, 1);
+                }
+                ChunkSection center = neighborhood[sectionIndex];
+                if (center != null) {
+                    center.copyBlockIds(0, localY, localZ, blockIds, rowStart + 1, SIZE);
+                }
+                ChunkSection east = neighborhood[sectionIndex + 1];
+                if (east != null) {
+                    east.copyBlockIds(0, localY, localZ, blockIds, rowStart + SIZE + 1, 1);
+                }
+            }
+        }
+        return new SectionSnapshot(chunkX, sectionY, chunkZ, section.getVisibleFaces().toArray(), blockIds);
+    }
+    
+    /**
+     * 获取方块类型ID（相对本分段的局部坐标，范围-1到16）
+     */
+    public int getBlockId(int localX, int localY, int localZ) {
+        return blockIds[((localY + 1) * PADDED_SIZE + localZ + 1) * PADDED_SIZE + localX + 1];
+    }
+    
+    /**
+     * 指定位置是否为实心方块（局部坐标，范围-1到16）
+     */
+    public boolean isSolid(int localX, int localY, int localZ) {
+        return SOLID[getBlockId(localX, localY, localZ) & 0xFF];
+    }
+    
+    public int getChunkX() { return chunkX; }
+    public int getSectionY() { return sectionY; }
+    public int getChunkZ() { return chunkZ; }
+    public int getFaceCount() { return faces.length; }
+    public int getFace(int index) { return faces[index]; }
+    
+    public int getOriginX() { return chunkX * Chunk.CHUNK_SIZE; }
+    public int getOriginY() { return sectionY * SIZE; }
+    public int getOriginZ() { return chunkZ * Chunk.CHUNK_SIZE; }
+}
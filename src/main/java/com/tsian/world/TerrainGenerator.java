@@ -0,0 +1,95 @@
+package com.tsian.world;
+
+import com.tsian.config.GameConfig;
+
+import java.util.Random;
+
+/**
+ * 地形生成器 - 根据种子生成空岛地形
+ *
+ * 负责：
+ * - 生成空岛的地面、水池和边缘
+ * - 调用TreeGenerator生成树木
+ * - 每个区块使用由种子和区块坐标派生的随机数，结果可复现且可在多个线程中并行生成
+ */
+public class TerrainGenerator {
+    
+    private final long seed; // 世界种子
+    private final int islandMinChunk; // 空岛最小区块坐标
+    private final int islandMaxChunk; // 空岛最大区块坐标
+    
+    public TerrainGenerator(long seed, GameConfig config) {
+        this.seed = seed;
+        this.islandMinChunk = config.world.islandMinChunk;
+        this.islandMaxChunk = config.world.islandMaxChunk;
+    }
+    
+    /**
+     * 生成区块地形（只写入传入的区块，不访问其他共享状态）
+     */
+    public void generate(Chunk chunk) {
+        int chunkX = chunk.getChunkX();
+        int chunkZ = chunk.getChunkZ();
+        Random random = new Random(chunkSeed(chunkX, chunkZ));
+        
+        // 计算空岛中心坐标
+        float centerX = (islandMaxChunk + islandMinChunk) * 0.5f * Chunk.CHUNK_SIZE + Chunk.CHUNK_SIZE / 2.0f;
+        float centerZ = (islandMaxChunk + islandMinChunk) * 0.5f * Chunk.CHUNK_SIZE + Chunk.CHUNK_SIZE / 2.0f;
+        
+        for (int x = 0; x < Chunk.CHUNK_SIZE; x++) {
+            for (int z = 0; z < Chunk.CHUNK_SIZE; z++) {
+                int worldX = chunkX * Chunk.CHUNK_SIZE + x;
+                int worldZ = chunkZ * Chunk.CHUNK_SIZE + z;
+                
+                // 计算到空岛中心的距离
+                float distanceToCenter = (float) Math.sqrt(
+                    Math.pow(worldX - centerX, 2) + Math.pow(worldZ - centerZ, 2)
+                );
+                
+                // 检查是否在水池区域内（中心附近5格半径）
+                if (distanceToCenter <= 5.0f) {
+                    // 创建水池：在地面高度放置水方块，替换草方块
+                    chunk.setBlock(worldX, 0, worldZ, Block.BlockType.STONE);    // 底层：圆石
+                    chunk.setBlock(worldX, 1, worldZ, Block.BlockType.DIRT);     // 第二层：泥块
+                    chunk.setBlock(worldX, 2, worldZ, Block.BlockType.DIRT);     // 第三层：泥块
+                    chunk.setBlock(worldX, 3, worldZ, Block.BlockType.WATER);    // 顶层：水方块（替换草方块）
+                } else if (distanceToCenter <= 24) {
+                    // 核心区域：完整地形
+                    generateFullTerrain(chunk, worldX, worldZ);
+                } else if (distanceToCenter <= 28) {
+                    // 边缘区域：随机生成，形成自然边缘
+                    float edgeChance = (28 - distanceToCenter) / 4.0f; // 0到1的渐变
+                    if (random.nextFloat() < edgeChance) {
+                        generateFullTerrain(chunk, worldX, worldZ);
+                    }
+                }
+                // 超出28格的区域保持空气
+            }
+        }
+        
+        // 在空岛上生成少量树木
+        TreeGenerator.generateRandomTrees(chunk, 1.0f, random); // 降低树木密度
+    }
+    
+    /**
+     * 生成完整地形层
+     */
+    private void generateFullTerrain(Chunk chunk, int worldX, int worldZ) {
+        chunk.setBlock(worldX, 0, worldZ, Block.BlockType.STONE);    // 底层：圆石
+        chunk.setBlock(worldX, 1, worldZ, Block.BlockType.DIRT);     // 第二层：泥块
+        chunk.setBlock(worldX, 2, worldZ, Block.BlockType.DIRT);     // 第三层：泥块
+        chunk.setBlock(worldX, 3, worldZ, Block.BlockType.GRASS);    // 顶层：草方块
+    }
+    
+    /**
+     * 由世界种子和区块坐标派生区块随机种子
+     */
+    private long chunkSeed(int chunkX, int chunkZ) {
+        long h = seed;
+        h = h * 31 + chunkX * 341873128712L;
+        h = h * 31 + chunkZ * 132897987541L;
+        return h;
+    }
+    
+    public long getSeed() { return seed; }
+}
@@ -4,19 +4,19 @@ import java.util.Random;
 
 /**
  * 树木生成器 - 负责生成各种类型的树木结构
+ * 随机数由调用方传入，保证同一种子生成相同的树，且可在多个线程中并行调用
  */
 public class TreeGenerator {
     
-    private static final Random random = new Random();
-    
     /**
      * 生成一棵标准橡树
      * @param chunk 目标区块
      * @param localX 区块内的x坐标 (0-15)
      * @param localZ 区块内的z坐标 (0-15)
      * @param groundY 地面高度
+     * @param random 随机数生成器
      */
-    public static void generateOakTree(Chunk chunk, int localX, int localZ, int groundY) {
+    public static void generateOakTree(Chunk chunk, int localX, int localZ, int groundY, Random random) {
         // 计算世界坐标
         int worldX = chunk.getChunkX() * Chunk.CHUNK_SIZE + localX;
         int worldZ = chunk.getChunkZ() * Chunk.CHUNK_SIZE + localZ;
@@ -33,17 +33,17 @@ public class TreeGenerator {
         int leavesStartY = groundY + treeHeight - 1; // 树叶从树干顶部往下2层开始
         
         // 顶层树叶 (十字形)
-        generateLeavesLayer(chunk, worldX, worldZ, leavesStartY + 2, 1);
+        generateLeavesLayer(chunk, worldX, worldZ, leavesStartY + 2, 1, random);
         
         // 中层树叶 (3x3)
-        generateLeavesLayer(chunk, worldX, worldZ, leavesStartY + 1, 2);
+        generateLeavesLayer(chunk, worldX, worldZ, leavesStartY + 1, 2, random);
         
         // 下层树叶 (3x3)
-        generateLeavesLayer(chunk, worldX, worldZ, leavesStartY, 2);
+        generateLeavesLayer(chunk, worldX, worldZ, leavesStartY, 2, random);
         
         // 可选：最下层稀疏树叶 (3x3但有缺失)
         if (random.nextBoolean()) {
-            generateSparseLeavesLayer(chunk, worldX, worldZ, leavesStartY - 1, 2);
+            generateSparseLeavesLayer(chunk, worldX, worldZ, leavesStartY - 1, 2, random);
         }
     }
     
@@ -54,8 +54,9 @@ public class TreeGenerator {
      * @param centerZ 中心世界z坐标
      * @param y 生成高度
      * @param radius 半径 (1=十字形, 2=3x3)
+     * @param random 随机数生成器
      */
-    private static void generateLeavesLayer(Chunk chunk, int centerX, int centerZ, int y, int radius) {
+    private static void generateLeavesLayer(Chunk chunk, int centerX, int centerZ, int y, int radius, Random random) {
         for (int dx = -radius; dx <= radius; dx++) {
             for (int dz = -radius; dz <= radius; dz++) {
                 int x = centerX + dx;
@@ -85,7 +86,7 @@ public class TreeGenerator {
     /**
      * 生成稀疏树叶层（有随机缺失）
      */
-    private static void generateSparseLeavesLayer(Chunk chunk, int centerX, int centerZ, int y, int radius) {
+    private static void generateSparseLeavesLayer(Chunk chunk, int centerX, int centerZ, int y, int radius, Random random) {
         for (int dx = -radius; dx <= radius; dx++) {
             for (int dz = -radius; dz <= radius; dz++) {
                 int x = centerX + dx;
@@ -165,8 +166,9 @@ public class TreeGenerator {
      * 在区块中随机生成树木
      * @param chunk 目标区块
      * @param density 树木密度 (0.0-1.0)
+     * @param random 随机数生成器
      */
-    public static void generateRandomTrees(Chunk chunk, float density) {
+    public static void generateRandomTrees(Chunk chunk, float density, Random random) {
         int treesToGenerate = (int) (Chunk.CHUNK_SIZE * Chunk.CHUNK_SIZE * density / 100.0f);
         treesToGenerate = Math.max(1, treesToGenerate); // 至少生成1棵树
         
@@ -185,7 +187,7 @@ public class TreeGenerator {
             int groundY = 3;
             
             if (canPlaceTree(chunk, localX, localZ, groundY)) {
-                generateOakTree(chunk, localX, localZ, groundY);
+                generateOakTree(chunk, localX, localZ, groundY, random);
                 generated++;
             }
         }
@@ -1,7 +1,10 @@
 package com.tsian.world;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 世界类 - 基于区块的无限世界
@@ -9,18 +12,33 @@ import java.util.List;
  * 负责：
  * - 协调整个游戏世界的操作
  * - 管理区块加载和更新
- * - 计算和缓存可见面信息
+ * - 按区块增量计算可见面信息（只重新计算发生变化的区块）
  * - 提供高层级的方块操作接口
  */
 public class World {
     
     private ChunkManager chunkManager; // 区块管理器
-    private List<VisibleFace> cachedVisibleFaces; // 缓存的可见面
-    private boolean needsVisibleFaceUpdate = true; // 是否需要更新可见面
+    private final Set<Chunk> dirtyChunks; // 自上次重建后发生变化的区块（由区块在第一次修改时加入）
+    private boolean visibleFacesChanged = false; // 可见面是否在上次网格重建后发生变化
+    private final Set<Chunk> rebuiltChunks; // 可见面已重新计算、等待渲染器重建网格的区块
     
-    // 玩家位置跟踪
+    // 面剔除用的临时数据（只在主线程中使用）
+    private final SectionFaceCuller faceCuller = new SectionFaceCuller();
+    private final ChunkSection[] sectionNeighbors = new ChunkSection[6];
+    private final int[][] visibleRows = new int[6][ChunkSection.ROWS];
+    
+    // 玩家位置和视线方向跟踪（用于区块加载优先级）
     private float lastPlayerX = Float.MAX_VALUE;
     private float lastPlayerZ = Float.MAX_VALUE;
+    private float lastLookX = 0.0f;
+    private float lastLookZ = 0.0f;
+    private float lastVelocityX = 0.0f;
+    private float lastVelocityZ = 0.0f;
+    
+    // 玩家移动超过1格、视线水平转动超过约15度或速度变化超过2格/秒时重新计算加载优先级
+    private static final float REPRIORITIZE_DISTANCE = 1.0f;
+    private static final float REPRIORITIZE_COS_ANGLE = 0.966f;
+    private static final float REPRIORITIZE_VELOCITY = 2.0f;
     
     public World() {
         this(new com.tsian.config.GameConfig());
@@ -28,7 +46,9 @@ public class World {
     
     public World(com.tsian.config.GameConfig config) {
         this.chunkManager = new ChunkManager(config);
-        this.cachedVisibleFaces = new ArrayList<>();
+        this.dirtyChunks = new LinkedHashSet<>();
+        this.rebuiltChunks = new LinkedHashSet<>();
+        this.chunkManager.setChunkDirtyListener(dirtyChunks::add);
         System.out.println("Initialized chunk-based infinite world");
     }
     
@@ -39,129 +59,157 @@ public class World {
         chunkManager.loadInitialChunks(playerX, playerZ);
         lastPlayerX = playerX;
         lastPlayerZ = playerZ;
+        lastLookX = 0.0f;
+        lastLookZ = -1.0f;
+        chunkManager.updateChunks(playerX, playerZ, lastLookX, lastLookZ, 0.0f, 0.0f); // 开始流式加载视距内的其余区块
         calculateVisibleFaces();
+        visibleFacesChanged = false; // 初始网格由渲染器初始化时构建
         System.out.println("World initialized around player position (" + playerX + ", " + playerZ + ")");
         System.out.println(chunkManager.getStats());
     }
     
     /**
-     * 更新世界状态（基于玩家位置）
+     * 更新世界状态（基于玩家位置、视线方向和水平速度）
+     * @param lookX 视线方向X分量
+     * @param lookZ 视线方向Z分量
+     * @param velocityX 玩家X方向速度（格/秒），用于预测加载
+     * @param velocityZ 玩家Z方向速度（格/秒）
      */
-    public void updateWorld(float playerX, float playerZ) {
-        // 检查玩家是否移动了足够远的距离
+    public void updateWorld(float playerX, float playerZ, float lookX, float lookZ,
+                            float velocityX, float velocityZ) {
+        // 归一化水平视线方向（垂直向上/下看时沿用上次的方向）
+        float lookLength = (float) Math.sqrt(lookX * lookX + lookZ * lookZ);
+        if (lookLength > 1e-3f) {
+            lookX /= lookLength;
+            lookZ /= lookLength;
+        } else {
+            lookX = lastLookX;
+            lookZ = lastLookZ;
+        }
+        
+        // 检查玩家是否移动或转向了足够的幅度
         float deltaX = Math.abs(playerX - lastPlayerX);
         float deltaZ = Math.abs(playerZ - lastPlayerZ);
+        boolean turned = lookX * lastLookX + lookZ * lastLookZ < REPRIORITIZE_COS_ANGLE;
+        boolean accelerated = Math.abs(velocityX - lastVelocityX) > REPRIORITIZE_VELOCITY ||
+                              Math.abs(velocityZ - lastVelocityZ) > REPRIORITIZE_VELOCITY;
         
-        if (deltaX > 8.0f || deltaZ > 8.0f) { // 移动超过半个区块
-            chunkManager.updateChunks(playerX, playerZ);
+        if (deltaX > REPRIORITIZE_DISTANCE || deltaZ > REPRIORITIZE_DISTANCE || turned || accelerated) {
+            chunkManager.updateChunks(playerX, playerZ, lookX, lookZ, velocityX, velocityZ);
             lastPlayerX = playerX;
             lastPlayerZ = playerZ;
-            needsVisibleFaceUpdate = true;
+            lastLookX = lookX;
+            lastLookZ = lookZ;
+            lastVelocityX = velocityX;
+            lastVelocityZ = velocityZ;
         }
         
-        // 检查是否有区块需要重建
-        for (Chunk chunk : chunkManager.getLoadedChunks().values()) {
-            if (chunk.needsRebuild()) {
-                needsVisibleFaceUpdate = true;
-                break;
-            }
-        }
+        // 加入后台加载完成的区块（新区块会加入脏区块集合）
+        chunkManager.integrateLoadedChunks();
         
-        // 更新可见面（如果需要）
-        if (needsVisibleFaceUpdate) {
+        // 只在有区块变化时更新可见面，空闲帧的开销与已加载区块数无关
+        if (!dirtyChunks.isEmpty()) {
             calculateVisibleFaces();
-            needsVisibleFaceUpdate = false;
         }
     }
     
     /**
-     * 预计算所有可见面（基于区块）
+     * 重新计算脏区块的可见面（其他区块沿用各自缓存的结果）
+     *
+     * 方块修改会同时标记相邻的区块（边界方块的面可见性依赖邻居），
+     * 因此每次只需要处理被修改的区块及其邻居。
      */
     private void calculateVisibleFaces() {
-        cachedVisibleFaces.clear();
+        if (dirtyChunks.isEmpty()) {
+            return;
+        }
         
-        // 遍历所有已加载区块中的方块
-        for (Chunk chunk : chunkManager.getLoadedChunks().values()) {
-            for (Block block : chunk.getBlocks().values()) {
-                if (block.getType() == Block.BlockType.AIR) continue;
-                
-                // 检查每个面是否可见
-                for (int face = 0; face < 6; face++) {
-                    if (isFaceVisible(block, face)) {
-                        cachedVisibleFaces.add(new VisibleFace(block, face));
-                    }
-                }
+        int faceCount = 0;
+        for (Chunk chunk : dirtyChunks) {
+            for (ChunkSection section : chunk.getSections()) {
+                collectSectionFaces(chunk, section);
+                faceCount += section.getVisibleFaces().size();
             }
-            
-            // 标记区块已重建
-            chunk.markRebuilt();
+            chunk.markRebuilt(); // 之后的修改会重新加入集合
+            rebuiltChunks.add(chunk);
         }
         
-        System.out.println("Calculated " + cachedVisibleFaces.size() + " visible faces from " + 
+        System.out.println("Updated " + faceCount + " visible faces in " + dirtyChunks.size() + " of " +
                           chunkManager.getLoadedChunks().size() + " chunks");
+        dirtyChunks.clear();
+        visibleFacesChanged = true;
     }
     
     /**
-     * 获取所有可见面（使用缓存）
-     */
-    public List<VisibleFace> getVisibleFaces() {
-        return cachedVisibleFaces;
-    }
-    
-    /**
-     * 检查方块的某个面是否可见
+     * 用占用掩码计算一个分段的可见面，压缩后存入分段的可见面列表
      */
-    private boolean isFaceVisible(Block block, int face) {
-        int x = block.getX();
-        int y = block.getY();
-        int z = block.getZ();
-        
-        // 计算相邻方块的位置
-        int adjX = x, adjY = y, adjZ = z;
-        
-        switch (face) {
-            case 0: adjZ++; break; // 前面
-            case 1: adjZ--; break; // 后面
-            case 2: adjX--; break; // 左面
-            case 3: adjX++; break; // 右面
-            case 4: adjY++; break; // 上面
-            case 5: adjY--; break; // 下面
+    private void collectSectionFaces(Chunk chunk, ChunkSection section) {
+        PackedFaceList faces = section.getVisibleFaces();
+        faces.clear();
+        if (section.isEmpty()) {
+            return;
         }
         
-        // 获取相邻方块
-        Block adjacentBlock = getBlockAt(adjX, adjY, adjZ);
+        int chunkX = chunk.getChunkX();
+        int chunkZ = chunk.getChunkZ();
+        int sectionY = section.getSectionY();
         
-        // 如果没有相邻方块，面可见
-        if (adjacentBlock == null || adjacentBlock.getType() == Block.BlockType.AIR) {
-            return true;
-        }
+        // 按面方向收集相邻分段（0=+Z 1=-Z 2=-X 3=+X 4=+Y 5=-Y）
+        sectionNeighbors[0] = getSection(chunkX, sectionY, chunkZ + 1);
+        sectionNeighbors[1] = getSection(chunkX, sectionY, chunkZ - 1);
+        sectionNeighbors[2] = getSection(chunkX - 1, sectionY, chunkZ);
+        sectionNeighbors[3] = getSection(chunkX + 1, sectionY, chunkZ);
+        sectionNeighbors[4] = chunk.getSection(sectionY + 1);
+        sectionNeighbors[5] = chunk.getSection(sectionY - 1);
+        faceCuller.cull(section, sectionNeighbors, visibleRows);
         
-        // 如果是相同类型的方块，面不可见（剔除）- 包括同种透明方块
-        if (block.getType() == adjacentBlock.getType()) {
-            return false;
-        }
-        
-        // 透明方块的特殊处理
-        boolean currentIsTransparent = (block.getType() == Block.BlockType.WATER || block.getType() == Block.BlockType.LEAVES);
-        boolean adjacentIsTransparent = (adjacentBlock.getType() == Block.BlockType.WATER || adjacentBlock.getType() == Block.BlockType.LEAVES);
-        
-        // 如果当前方块是透明的，且相邻方块是不透明的，当前面不可见（剔除）
-        if (currentIsTransparent && !adjacentIsTransparent) {
-            return false;
-        }
-        
-        // 如果当前方块是不透明的，且相邻方块是透明的，当前面可见
-        if (!currentIsTransparent && adjacentIsTransparent) {
-            return true;
-        }
-        
-        // 如果都是透明但不同类型，面可见
-        if (currentIsTransparent && adjacentIsTransparent) {
-            return true;
+        for (int face = 0; face < 6; face++) {
+            int[] rows = visibleRows[face];
+            for (int row = 0; row < ChunkSection.ROWS; row++) {
+                int bits = rows[row];
+                int y = row / ChunkSection.SIZE;
+                int z = row % ChunkSection.SIZE;
+                while (bits != 0) {
+                    int x = Integer.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int blockId = section.getBlockType(x, y, z).getId();
+                    faces.add(PackedFaceList.pack(x, y, z, face, blockId));
+                }
+            }
         }
-        
-        // 默认：不透明方块之间的相邻面不可见
-        return false;
+    }
+    
+    /**
+     * 获取已加载区块中的分段，区块未加载或分段不存在时返回null
+     */
+    public ChunkSection getSection(int chunkX, int sectionY, int chunkZ) {
+        Chunk chunk = chunkManager.getChunk(chunkX, chunkZ);
+        return chunk != null ? chunk.getSection(sectionY) : null;
+    }
+    
+    /**
+     * 检查并清除可见面变化标记（用于决定是否重建网格）
+     */
+    public boolean consumeVisibleFacesChanged() {
+        boolean changed = visibleFacesChanged;
+        visibleFacesChanged = false;
+        return changed;
+    }
+    
+    /**
+     * 取出自上次调用后可见面发生变化的区块（渲染器只重建这些区块的网格）
+     */
+    public List<Chunk> drainRebuiltChunks() {
+        List<Chunk> chunks = new ArrayList<>(rebuiltChunks);
+        rebuiltChunks.clear();
+        return chunks;
+    }
+    
+    /**
+     * 获取所有已加载的区块（每个分段缓存了自己的可见面）
+     */
+    public Collection<Chunk> getChunks() {
+        return chunkManager.getLoadedChunks().values();
     }
     
     /**
@@ -205,11 +253,7 @@ public class World {
      * 移除指定位置的方块（设置为空气）
      */
     public boolean removeBlockAt(int x, int y, int z) {
-        boolean success = chunkManager.removeBlock(x, y, z);
-        if (success) {
-            needsVisibleFaceUpdate = true;
-        }
-        return success;
+        return chunkManager.removeBlock(x, y, z);
     }
     
     /**
@@ -220,22 +264,16 @@ public class World {
     }
     
     /**
-     * 获取区块管理器（用于调试）
+     * 停止后台区块加载
      */
-    public ChunkManager getChunkManager() {
-        return chunkManager;
+    public void shutdown() {
+        chunkManager.shutdown();
     }
     
     /**
-     * 可见面数据结构
+     * 获取区块管理器（用于调试）
      */
-    public static class VisibleFace {
-        public final Block block;
-        public final int face;
-        
-        public VisibleFace(Block block, int face) {
-            this.block = block;
-            this.face = face;
-        }
+    public ChunkManager getChunkManager() {
+        return chunkManager;
     }
 }
\ No newline at end of file
@@ -1,11 +1,12 @@
 #version 330 core
-out vec4 FragColor;
+layout (location = 0) out vec4 FragColor;
+layout (location = 1) out vec4 OitWeight; // 加权混合OIT的累积权重（只在OIT累积时有对应的颜色附件）
 
-in vec2 TexCoord;
+in vec2 TexCoord;     // 方块贴图在图集中的左下角
 in vec3 FragPos;
 in float BlockType;
 in vec3 Normal;     // 接收法线
-in vec2 VertexCoord; // 接收顶点在面中的坐标
+in vec2 VertexCoord; // 接收顶点在面中的坐标（只使用小数部分，合并后的面按格子重复）
 in float AOOcclusion; // 接收AO遮蔽值
 
 uniform sampler2D ourTexture;
@@ -15,6 +16,12 @@ uniform float ambientLight;   // 环境光强度
 // 环境光遮蔽参数
 uniform float aoStrength;     // AO强度 (0.0 - 1.0) - 增强边缘效果
 
+// 快速树叶：树叶不做透明度测试，镂空处显示为黑色
+uniform int fastLeaves;
+
+// 加权混合OIT累积：输出预乘并加权的颜色，权重随深度和不透明度变化
+uniform int oitPass;
+
 // 破坏效果参数
 uniform float breakProgress;  // 破坏进度 (0.0 - 1.0)
 uniform vec3 targetBlockPos;  // 目标方块位置
@@ -26,9 +33,18 @@ float calculateAO(float occlusion) {
     return occlusion;
 }
 
+// 图集中单个方块贴图的大小（16x16像素，图集64x48）
+const vec2 TILE_SIZE = vec2(16.0/64.0, 16.0/48.0);
+
 void main() {
+    // 面内坐标的小数部分即当前方块格子内的位置，合并后的大面按格子重复贴图
+    vec2 localUV = vec2(fract(VertexCoord.x), 1.0 - fract(VertexCoord.y));
+    
     // 获取纹理颜色
-    vec4 texColor = texture(ourTexture, TexCoord);
+    vec4 texColor = texture(ourTexture, TexCoord + vec2(localUV.x, localUV.y - 1.0) * TILE_SIZE);
+    if (fastLeaves != 0 && int(BlockType) == 4) {
+        texColor = vec4(texColor.rgb * texColor.a, 1.0);
+    }
     if(texColor.a < 0.1)
         discard;
     
@@ -68,20 +84,6 @@ void main() {
         FragPos.y >= targetBlockPos.y && FragPos.y <= targetBlockPos.y + 1.0 &&
         FragPos.z >= targetBlockPos.z && FragPos.z <= targetBlockPos.z + 1.0) {
         
-        // 计算在当前方块面上的局部UV坐标 [0,1]
-        // 需要从TexCoord反推出在当前方块纹理中的相对位置
-        vec2 localUV;
-        
-        // 根据方块类型获取其纹理的UV范围，然后计算局部坐标
-        // 由于无法在着色器中获取方块的具体纹理范围，我们使用一个通用的方法
-        // 假设所有方块纹理都是16x16像素，在64x48的纹理图集中
-        float blockTexSizeU = 16.0/64.0; // 方块纹理在U方向的大小
-        float blockTexSizeV = 16.0/48.0; // 方块纹理在V方向的大小
-        
-        // 计算TexCoord在其所属方块纹理中的局部位置
-        vec2 blockTexStart = floor(TexCoord / vec2(blockTexSizeU, blockTexSizeV)) * vec2(blockTexSizeU, blockTexSizeV);
-        localUV = (TexCoord - blockTexStart) / vec2(blockTexSizeU, blockTexSizeV);
-        
         // 根据破坏进度选择破坏纹理（10-12号纹理）
         vec2 breakTexCoord;
         if (breakProgress < 0.33) {
@@ -113,5 +115,14 @@ void main() {
         lighting = lighting * 1.3; // 增加30%亮度
     }
     
-    FragColor = vec4(lighting, texColor.a);
+    if (oitPass != 0) {
+        float alpha = texColor.a;
+        float weight = clamp(pow(min(1.0, alpha * 10.0) + 0.01, 3.0) * 1e8 *
+                             pow(1.0 - gl_FragCoord.z * 0.9, 3.0), 1e-2, 3e3);
+        FragColor = vec4(lighting * alpha * weight, alpha);
+        OitWeight = vec4(alpha * weight, 0.0, 0.0, 0.0);
+    } else {
+        FragColor = vec4(lighting, texColor.a);
+        OitWeight = vec4(0.0);
+    }
 }
\ No newline at end of file
@@ -1,10 +1,8 @@
 #version 330 core
-layout (location = 0) in vec3 aPos;
-layout (location = 1) in vec2 aTexCoord;
-layout (location = 2) in float aBlockType;
-layout (location = 3) in vec3 aNormal;     // 法线属性
-layout (location = 4) in vec2 aVertexCoord; // 顶点在面中的坐标 (0-1)
-layout (location = 5) in float aAOOcclusion; // AO遮蔽值
+// 压缩顶点（格式见PackedVertex）：
+// x: 位置 X+1024 (0-10位) | Y+512 (11-20位) | Z+1024 (21-31位)，相对网格原点
+// y: 面方向 (0-2位) | AO等级 (3-4位) | 方块类型 (8-15位) | 贴图列 (16-19位) | 贴图上边缘行 (20-23位)
+layout (location = 0) in uvec2 aPacked;
 
 out vec2 TexCoord;
 out vec3 FragPos;
@@ -16,24 +14,56 @@ out float AOOcclusion; // 传递AO遮蔽值到片段着色器
 uniform mat4 model;
 uniform mat4 view;
 uniform mat4 projection;
+uniform vec3 chunkOrigin; // 网格原点（分段最小角的世界坐标）
+
+// 图集中单个方块贴图的大小（16x16像素，图集64x48）
+const vec2 TILE_SIZE = vec2(16.0/64.0, 16.0/48.0);
+
+// 按面方向索引（0=+Z 1=-Z 2=-X 3=+X 4=+Y 5=-Y）的法线和面内坐标方向
+const vec3 FACE_NORMAL[6] = vec3[6](
+    vec3(0.0, 0.0, 1.0), vec3(0.0, 0.0, -1.0), vec3(-1.0, 0.0, 0.0),
+    vec3(1.0, 0.0, 0.0), vec3(0.0, 1.0, 0.0), vec3(0.0, -1.0, 0.0)
+);
+const vec3 FACE_S_DIR[6] = vec3[6](
+    vec3(1.0, 0.0, 0.0), vec3(-1.0, 0.0, 0.0), vec3(0.0, 0.0, 1.0),
+    vec3(0.0, 0.0, -1.0), vec3(1.0, 0.0, 0.0), vec3(1.0, 0.0, 0.0)
+);
+const vec3 FACE_T_DIR[6] = vec3[6](
+    vec3(0.0, 1.0, 0.0), vec3(0.0, 1.0, 0.0), vec3(0.0, 1.0, 0.0),
+    vec3(0.0, 1.0, 0.0), vec3(0.0, 0.0, -1.0), vec3(0.0, 0.0, 1.0)
+);
+
+// AO等级对应的遮蔽值（0=无遮蔽 1=对角线 2=一侧 3=两侧）
+const float AO_VALUES[4] = float[4](0.0, 0.1, 0.25, 0.5);
 
 void main() {
+    // 解码位置
+    vec3 localPos = vec3(float(aPacked.x & 0x7FFu) - 1024.0,
+                         float((aPacked.x >> 11u) & 0x3FFu) - 512.0,
+                         float(aPacked.x >> 21u) - 1024.0);
+    vec3 worldPos = chunkOrigin + localPos;
+    
+    // 解码面属性
+    int face = int(aPacked.y & 7u);
+    int ao = int((aPacked.y >> 3u) & 3u);
+    
     // 计算世界空间中的片段位置
-    FragPos = vec3(model * vec4(aPos, 1.0));
+    FragPos = vec3(model * vec4(worldPos, 1.0));
     
-    // 传递法线（需要使用法线矩阵进行变换，这里简化处理）
-    Normal = aNormal;
+    // 法线由面方向得到
+    Normal = FACE_NORMAL[face];
     
-    // 传递顶点在面中的坐标
-    VertexCoord = aVertexCoord;
+    // 面内坐标：顶点位置在面的s/t方向上的投影，片段着色器只使用小数部分，
+    // 与四边形起点相差的整数不影响贴图
+    VertexCoord = vec2(dot(localPos, FACE_S_DIR[face]), dot(localPos, FACE_T_DIR[face]));
     
     // 传递AO遮蔽值
-    AOOcclusion = aAOOcclusion;
+    AOOcclusion = AO_VALUES[ao];
     
-    // 传递纹理坐标和方块类型
-    TexCoord = aTexCoord;
-    BlockType = aBlockType;
+    // 贴图左下角的纹理坐标和方块类型
+    TexCoord = vec2(float((aPacked.y >> 16u) & 0xFu), float((aPacked.y >> 20u) & 0xFu)) * TILE_SIZE;
+    BlockType = float((aPacked.y >> 8u) & 0xFFu);
     
     // 计算最终位置
-    gl_Position = projection * view * model * vec4(aPos, 1.0);
+    gl_Position = projection * view * model * vec4(worldPos, 1.0);
 }
\ No newline at end of file
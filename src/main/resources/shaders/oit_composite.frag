@@ -0,0 +1,18 @@
+#version 330 core
+// 加权混合OIT合成：累积颜色除以累积权重得到平均颜色，按总遮挡（1 - 透过率）混合到场景上
+out vec4 FragColor;
+
+uniform sampler2D accumTexture;  // rgb: sum(颜色 * alpha * 权重)，a: prod(1 - alpha)（透过率）
+uniform sampler2D weightTexture; // r: sum(alpha * 权重)
+
+void main() {
+    ivec2 coord = ivec2(gl_FragCoord.xy);
+    vec4 accum = texelFetch(accumTexture, coord, 0);
+    float revealage = accum.a;
+    if (revealage >= 1.0) {
+        discard; // 没有半透明片段
+    }
+    float weight = texelFetch(weightTexture, coord, 0).r;
+    vec3 averageColor = accum.rgb / max(weight, 1e-5);
+    FragColor = vec4(averageColor, 1.0 - revealage);
+}
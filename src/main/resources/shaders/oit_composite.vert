@@ -0,0 +1,6 @@
+#version 330 core
+// 全屏三角形：顶点由gl_VertexID生成，不需要顶点缓冲区
+void main() {
+    vec2 pos = vec2(float((gl_VertexID << 1) & 2), float(gl_VertexID & 2));
+    gl_Position = vec4(pos * 2.0 - 1.0, 0.0, 1.0);
+}
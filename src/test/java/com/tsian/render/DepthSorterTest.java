@@ -0,0 +1,50 @@
+package com.tsian.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 深度排序：基数排序的结果从远到近，且相同距离保持原有顺序
+ */
+public class DepthSorterTest {
+    
+    @Test
+    public void sortsFarToNearAndIsStable() {
+        Random random = new Random(42L);
+        int count = 5000;
+        float[] distances = new float[count];
+        int[] keys = new int[count];
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            // 整数坐标的距离平方，包含大量相同值
+            int dx = random.nextInt(64) - 32;
+            int dy = random.nextInt(16) - 8;
+            int dz = random.nextInt(64) - 32;
+            distances[i] = dx * dx + dy * dy + dz * dz;
+            keys[i] = DepthSorter.farToNearKey(distances[i]);
+            order[i] = i;
+        }
+        
+        new DepthSorter().sort(keys, order, count);
+        
+        boolean[] seen = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            seen[order[i]] = true;
+            assertEquals(DepthSorter.farToNearKey(distances[order[i]]), keys[i]);
+            if (i > 0) {
+                float previous = distances[order[i - 1]];
+                float current = distances[order[i]];
+                assertTrue(previous >= current, "not far to near at " + i);
+                if (previous == current) {
+                    assertTrue(order[i - 1] < order[i], "not stable at " + i);
+                }
+            }
+        }
+        for (boolean s : seen) {
+            assertTrue(s);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.tsian.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tsian.world.Chunk;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.SectionSnapshot;
+import com.tsian.world.TestWorlds;
+import com.tsian.world.World;
+import java.nio.IntBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 按面方向分段：贪心合并按方向连续输出四边形，摄像头在分段某一侧之外时跳过背向它的方向
+ */
+public class DirectionalRangesTest {
+    
+    @Test
+    public void skipsDirectionsFacingAwayFromCamera() {
+        // 分段 (0, 16, 0) - (16, 32, 16)
+        int above = SectionMesh.frontFaceMask(0, 16, 0, 8.0f, 40.0f, 8.0f);
+        assertEquals(0b011111, above, "camera above: no -Y faces");
+        
+        int below = SectionMesh.frontFaceMask(0, 16, 0, 8.0f, 10.0f, 8.0f);
+        assertEquals(0b101111, below, "camera below: no +Y faces");
+        
+        int corner = SectionMesh.frontFaceMask(0, 16, 0, 20.0f, 40.0f, -5.0f);
+        assertEquals((1 << 1) | (1 << 3) | (1 << 4), corner, "camera beyond +X, +Y and -Z corner");
+        
+        int inside = SectionMesh.frontFaceMask(0, 16, 0, 8.0f, 20.0f, 8.0f);
+        assertEquals(0b111111, inside, "camera inside the section");
+    }
+    
+    @Test
+    public void mesherGroupsQuadsByDirection() {
+        World world = TestWorlds.island();
+        try {
+            GreedyMesher mesher = new GreedyMesher();
+            IntBuffer vertexBuffer = IntBuffer.allocate(GreedyMesher.MAX_QUADS_PER_SECTION * 4 * PackedVertex.INTS_PER_VERTEX);
+            
+            long total = 0;
+            for (Chunk chunk : world.getChunks()) {
+                for (ChunkSection section : chunk.getSections()) {
+                    vertexBuffer.clear();
+                    int quadCount = mesher.meshOpaque(SectionSnapshot.capture(world, chunk, section), vertexBuffer);
+                    
+                    int quad = 0;
+                    for (int face = 0; face < 6; face++) {
+                        int end = quad + mesher.getFaceQuadCount(face);
+                        for (; quad < end; quad++) {
+                            for (int vertex = 0; vertex < 4; vertex++) {
+                                int attributes = vertexBuffer.get((quad * 4 + vertex) * PackedVertex.INTS_PER_VERTEX + 1);
+                                assertEquals(face, attributes & 7, "quad " + quad + " outside its direction range");
+                            }
+                        }
+                    }
+                    assertEquals(quadCount, quad, "direction ranges cover all quads");
+                    total += quadCount;
+                }
+            }
+            assertTrue(total > 0, "no quads meshed");
+        } finally {
+            world.shutdown();
+        }
+    }
+}
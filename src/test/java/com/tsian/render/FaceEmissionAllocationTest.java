@@ -0,0 +1,87 @@
+package com.tsian.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tsian.world.Block;
+import com.tsian.world.Chunk;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.PackedFaceList;
+import com.tsian.world.SectionSnapshot;
+import com.tsian.world.TestWorlds;
+import com.tsian.world.World;
+import java.lang.management.ManagementFactory;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 面输出不分配对象：逐面输出、贪心合并和透明面输出在预热后每个面分配0字节
+ */
+public class FaceEmissionAllocationTest {
+    
+    @Test
+    public void faceEmissionAllocatesNothing() {
+        World world = TestWorlds.island();
+        try {
+            List<SectionSnapshot> snapshotList = new ArrayList<>();
+            for (Chunk chunk : world.getChunks()) {
+                for (ChunkSection section : chunk.getSections()) {
+                    snapshotList.add(SectionSnapshot.capture(world, chunk, section));
+                }
+            }
+            SectionSnapshot[] snapshots = snapshotList.toArray(new SectionSnapshot[0]);
+            GreedyMesher mesher = new GreedyMesher();
+            IntBuffer vertexBuffer = IntBuffer.allocate(GreedyMesher.MAX_QUADS_PER_SECTION * 4 * PackedVertex.INTS_PER_VERTEX);
+            
+            for (int i = 0; i < 200; i++) {
+                emitAll(mesher, snapshots, vertexBuffer);
+            }
+            
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            long faces = 0;
+            for (int i = 0; i < 50; i++) {
+                faces += emitAll(mesher, snapshots, vertexBuffer);
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            
+            assertTrue(faces > 0, "no faces emitted");
+            assertEquals(0L, allocated, "bytes allocated while emitting " + faces + " faces");
+        } finally {
+            world.shutdown();
+        }
+    }
+    
+    /**
+     * 输出所有分段的面（不透明面逐面和贪心各一次，镂空面贪心，半透明面逐面）
+     * @return 处理的面数
+     */
+    static long emitAll(GreedyMesher mesher, SectionSnapshot[] snapshots, IntBuffer vertexBuffer) {
+        long faces = 0;
+        for (int i = 0; i < snapshots.length; i++) {
+            SectionSnapshot snapshot = snapshots[i];
+            vertexBuffer.clear();
+            mesher.meshOpaquePerFace(snapshot, vertexBuffer);
+            vertexBuffer.clear();
+            mesher.meshOpaque(snapshot, vertexBuffer);
+            mesher.meshCutout(snapshot, vertexBuffer);
+            vertexBuffer.clear();
+            for (int f = 0; f < snapshot.getFaceCount(); f++) {
+                int packed = snapshot.getFace(f);
+                int blockId = PackedFaceList.blockId(packed);
+                if (GreedyMesher.isTranslucent(blockId)) {
+                    int x = PackedFaceList.localX(packed);
+                    int y = PackedFaceList.localY(packed);
+                    int z = PackedFaceList.localZ(packed);
+                    int face = PackedFaceList.face(packed);
+                    mesher.addFace(x, y, z, Block.BlockType.fromId(blockId), face,
+                                   mesher.calculateAO(snapshot, x, y, z, face), vertexBuffer);
+                }
+            }
+            faces += snapshot.getFaceCount();
+        }
+        return faces;
+    }
+}
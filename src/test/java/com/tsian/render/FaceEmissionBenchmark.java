@@ -0,0 +1,89 @@
+package com.tsian.render;
+
+import com.tsian.config.GameConfig;
+import com.tsian.world.Chunk;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.SectionSnapshot;
+import com.tsian.world.TestWorlds;
+import com.tsian.world.World;
+import java.lang.management.ManagementFactory;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 面输出基准：整个空岛所有可见面的输出时间（逐面、贪心合并和透明面各一次）
+ *
+ * 每轮测量结束后输出本轮平均每个面分配的字节数，目标为0。
+ * 运行: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=FaceEmission
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FaceEmissionBenchmark {
+    
+    private World world;
+    private GreedyMesher mesher;
+    private IntBuffer vertexBuffer;
+    private SectionSnapshot[] snapshots;
+    
+    private com.sun.management.ThreadMXBean threads;
+    private long allocatedAtStart;
+    private long facesEmitted;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        world = TestWorlds.island(new GameConfig().world.viewDistance);
+        mesher = new GreedyMesher();
+        vertexBuffer = IntBuffer.allocate(GreedyMesher.MAX_QUADS_PER_SECTION * 4 * PackedVertex.INTS_PER_VERTEX);
+        
+        List<SectionSnapshot> snapshotList = new ArrayList<>();
+        for (Chunk chunk : world.getChunks()) {
+            for (ChunkSection section : chunk.getSections()) {
+                snapshotList.add(SectionSnapshot.capture(world, chunk, section));
+            }
+        }
+        snapshots = snapshotList.toArray(new SectionSnapshot[0]);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+    
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        facesEmitted = 0;
+        allocatedAtStart = threads.getCurrentThreadAllocatedBytes();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+        System.out.printf(" [%.4f bytes/face over %d faces]", (double) allocated / Math.max(facesEmitted, 1), facesEmitted);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.shutdown();
+    }
+    
+    @Benchmark
+    public long emitAllFaces() {
+        long faces = FaceEmissionAllocationTest.emitAll(mesher, snapshots, vertexBuffer);
+        facesEmitted += faces;
+        return faces;
+    }
+}
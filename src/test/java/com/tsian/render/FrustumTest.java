@@ -0,0 +1,28 @@
+package com.tsian.render;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tsian.Camera;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 视锥剔除：摄像头在原点朝-Z方向看时，前方的分段可见，后方、两侧和远裁剪面以外的分段被剔除
+ */
+public class FrustumTest {
+    
+    @Test
+    public void cullsSectionsOutsideView() {
+        Camera camera = new Camera(); // 初始朝向-Z
+        camera.setPosition(0.0f, 0.0f, 0.0f);
+        Frustum frustum = new Frustum();
+        frustum.update(Camera.perspective(45.0f, 4.0f / 3.0f, 0.1f, 1000.0f), camera.getViewMatrix());
+        
+        assertTrue(frustum.intersectsBox(-8, -8, -24, 8, 8, -8), "section in front");
+        assertTrue(frustum.intersectsBox(-16, -16, -16, 0, 0, 0), "section containing the camera");
+        assertFalse(frustum.intersectsBox(-8, -8, 8, 8, 8, 24), "section behind");
+        assertFalse(frustum.intersectsBox(-216, -8, -24, -200, 8, -8), "section far to the left");
+        assertFalse(frustum.intersectsBox(-8, 100, -24, 8, 116, -8), "section far above");
+        assertFalse(frustum.intersectsBox(-8, -8, -1116, 8, 8, -1100), "section beyond the far plane");
+    }
+}
@@ -0,0 +1,98 @@
+package com.tsian.render;
+
+import com.tsian.config.GameConfig;
+import com.tsian.world.Chunk;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.SectionSnapshot;
+import com.tsian.world.TestWorlds;
+import com.tsian.world.World;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 网格生成基准：逐面输出 vs 贪心合并（整个空岛的不透明几何），以及单个分段的重建时间
+ *
+ * 启动时输出两种方式的四边形数，基准结果为生成时间。
+ * 单个分段重建（方块被破坏后）的目标是远低于1毫秒。
+ * 运行: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=GreedyMeshing
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreedyMeshingBenchmark {
+    
+    private World world;
+    private GreedyMesher mesher;
+    private IntBuffer vertexBuffer;
+    private List<SectionSnapshot> snapshots; // 所有分段的快照
+    private SectionSnapshot editedSnapshot; // 空岛中部区块(1, 1)的底部分段（含水池和树木）
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        world = TestWorlds.island(new GameConfig().world.viewDistance);
+        mesher = new GreedyMesher();
+        
+        int faceCount = 0;
+        snapshots = new ArrayList<>();
+        for (Chunk chunk : world.getChunks()) {
+            for (ChunkSection section : chunk.getSections()) {
+                faceCount += section.getVisibleFaces().size();
+                snapshots.add(SectionSnapshot.capture(world, chunk, section));
+            }
+        }
+        vertexBuffer = IntBuffer.allocate(faceCount * 4 * PackedVertex.INTS_PER_VERTEX);
+        
+        Chunk editedChunk = world.getChunkManager().getChunk(1, 1);
+        editedSnapshot = SectionSnapshot.capture(world, editedChunk, editedChunk.getSection(0));
+        
+        System.out.println("Opaque quads: per-face " + perFace() + ", greedy " + greedy());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.shutdown();
+    }
+    
+    @Benchmark
+    public int perFace() {
+        vertexBuffer.clear();
+        int quadCount = 0;
+        for (SectionSnapshot snapshot : snapshots) {
+            quadCount += mesher.meshOpaquePerFace(snapshot, vertexBuffer);
+        }
+        return quadCount;
+    }
+    
+    @Benchmark
+    public int greedy() {
+        vertexBuffer.clear();
+        int quadCount = 0;
+        for (SectionSnapshot snapshot : snapshots) {
+            quadCount += mesher.meshOpaque(snapshot, vertexBuffer);
+        }
+        return quadCount;
+    }
+    
+    @Benchmark
+    public int remeshSection() {
+        vertexBuffer.clear();
+        return mesher.meshOpaque(editedSnapshot, vertexBuffer);
+    }
+}
@@ -0,0 +1,47 @@
+package com.tsian.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.IntBuffer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 缓冲区池：同一级别的缓冲区被复用，反复申请归还时本地内存占用不增长
+ */
+public class NativeBufferPoolTest {
+    
+    @Test
+    public void reusesBuffersAndKeepsFootprintFlat() {
+        NativeBufferPool pool = new NativeBufferPool();
+        try {
+            IntBuffer first = pool.acquireInt(3000);
+            assertEquals(0, first.position());
+            assertEquals(3000, first.limit());
+            assertEquals(4096 * Integer.BYTES, pool.getLiveBytes());
+            pool.release(first);
+            assertEquals(0, pool.getLiveBytes());
+            assertEquals(4096 * Integer.BYTES, pool.getPooledBytes());
+            
+            // 同一级别的申请复用刚归还的缓冲区
+            IntBuffer second = pool.acquireInt(2100);
+            assertSame(first, second);
+            assertEquals(2100, second.limit());
+            pool.release(second);
+            
+            // 模拟长时间反复重建：分配次数和峰值不再增长
+            for (int round = 0; round < 1000; round++) {
+                IntBuffer a = pool.acquireInt(5000);
+                IntBuffer b = pool.acquireInt(100);
+                pool.release(a);
+                pool.release(b);
+            }
+            assertEquals(3, pool.getAllocationCount());
+            assertEquals((8192 + 4096 + 1024) * Integer.BYTES, pool.getPeakBytes());
+            assertEquals(0, pool.getLiveBytes());
+        } finally {
+            pool.freeAll();
+        }
+        assertEquals(0, pool.getPooledBytes());
+    }
+}
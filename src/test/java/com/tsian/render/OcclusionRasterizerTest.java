@@ -0,0 +1,48 @@
+package com.tsian.render;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tsian.Camera;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 软件遮挡：摄像头在原点朝-Z方向看，墙后的分段被挡住，墙前、墙旁和跨过近平面的分段可见；
+ * 只被遮挡体部分覆盖的低分辨率像素不挡住后面的分段
+ */
+public class OcclusionRasterizerTest {
+    
+    @Test
+    public void wallHidesSectionsBehindIt() {
+        Camera camera = new Camera(); // 初始朝向-Z
+        camera.setPosition(0.0f, 0.0f, 0.0f);
+        OcclusionRasterizer rasterizer = new OcclusionRasterizer();
+        rasterizer.begin(Camera.perspective(45.0f, 4.0f / 3.0f, 0.1f, 1000.0f), camera.getViewMatrix());
+        
+        float[] wall = {-100, -100, -11, 100, 100, -10};
+        rasterizer.rasterize(wall, 1);
+        assertTrue(rasterizer.isBoxOccluded(-8, -8, -40, 8, 8, -24), "section behind the wall");
+        assertFalse(rasterizer.isBoxOccluded(-8, -8, -9, 8, 8, -5), "section in front of the wall");
+        assertFalse(rasterizer.isBoxOccluded(-8, -8, -8, 8, 8, 8), "section containing the camera");
+        
+        float[] pillar = {-1, -100, -11, 1, 100, -10};
+        rasterizer.rasterize(pillar, 1);
+        assertFalse(rasterizer.isBoxOccluded(-8, -8, -40, 8, 8, -24), "section wider than the pillar");
+        assertTrue(rasterizer.isBoxOccluded(-0.5f, -8, -40, 0.5f, 8, -24), "section hidden by the pillar");
+    }
+    
+    @Test
+    public void partiallyCoveredPixelDoesNotOcclude() {
+        Camera camera = new Camera();
+        camera.setPosition(0.0f, 0.0f, 0.0f);
+        OcclusionRasterizer rasterizer = new OcclusionRasterizer();
+        rasterizer.begin(Camera.perspective(45.0f, 4.0f / 3.0f, 0.1f, 1000.0f), camera.getViewMatrix());
+        
+        // 墙的右边缘投影到第128列像素的中心右侧（约128.6），这个像素只有一部分被覆盖
+        float[] wall = {-100, -100, -10.5f, 0.0259f, 100, -10};
+        rasterizer.rasterize(wall, 1);
+        // 远处的小盒子投影在第128列未被覆盖的部分（约128.7到128.9）
+        assertFalse(rasterizer.isBoxOccluded(0.3f, -0.1f, -101, 0.4f, 0.1f, -100), "box seen past the wall edge");
+        assertTrue(rasterizer.isBoxOccluded(-0.4f, -0.1f, -101, -0.3f, 0.1f, -100), "box fully behind the wall");
+    }
+}
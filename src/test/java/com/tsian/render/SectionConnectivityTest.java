@@ -0,0 +1,63 @@
+package com.tsian.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tsian.world.Chunk;
+import com.tsian.world.ChunkSection;
+import com.tsian.world.SectionSnapshot;
+import com.tsian.world.TestWorlds;
+import com.tsian.world.World;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 分段连通性：地表分段的顶面与四个侧面连通，实心的底层把-Y面隔开；连通关系对称，空气分段全部连通
+ */
+public class SectionConnectivityTest {
+    
+    @Test
+    public void surfaceSectionIsOpenOnlyAbove() {
+        World world = TestWorlds.island();
+        try {
+            SectionConnectivity connectivity = new SectionConnectivity();
+            
+            ChunkSection surface = world.getSection(1, 0, 1);
+            assertNotNull(surface, "surface section not loaded");
+            long surfaceConnectivity = connectivity.compute(capture(world, surface));
+            for (int face = 0; face < 4; face++) {
+                assertTrue(SectionConnectivity.isConnected(surfaceConnectivity, 4, face), "top to side " + face);
+            }
+            for (int face = 0; face < 6; face++) {
+                assertFalse(SectionConnectivity.isConnected(surfaceConnectivity, 5, face), "bottom to face " + face);
+            }
+            
+            for (Chunk chunk : world.getChunks()) {
+                for (ChunkSection section : chunk.getSections()) {
+                    long value = connectivity.compute(SectionSnapshot.capture(world, chunk, section));
+                    if (section.isEmpty()) {
+                        assertEquals(SectionConnectivity.ALL_CONNECTED, value, "empty section");
+                    }
+                    for (int a = 0; a < 6; a++) {
+                        for (int b = 0; b < 6; b++) {
+                            assertEquals(SectionConnectivity.isConnected(value, a, b),
+                                         SectionConnectivity.isConnected(value, b, a), "symmetry " + a + "," + b);
+                        }
+                    }
+                }
+            }
+        } finally {
+            world.shutdown();
+        }
+    }
+    
+    private static SectionSnapshot capture(World world, ChunkSection section) {
+        for (Chunk chunk : world.getChunks()) {
+            if (chunk.getSection(section.getSectionY()) == section) {
+                return SectionSnapshot.capture(world, chunk, section);
+            }
+        }
+        throw new IllegalStateException("section not in a loaded chunk");
+    }
+}
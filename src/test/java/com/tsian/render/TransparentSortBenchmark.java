@@ -0,0 +1,83 @@
+package com.tsian.render;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 透明面排序基准：量化距离键的基数排序 vs long键的Arrays.sort（之前的实现）
+ *
+ * 面位于摄像头周围128x32x128的范围内，每次操作计算键并排序所有面。
+ * 运行: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=TransparentSort
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransparentSortBenchmark {
+    
+    @Param({"10000", "100000"})
+    private int faceCount;
+    
+    private int[] positions;
+    private float cameraX = 0.3f, cameraY = 70.6f, cameraZ = -0.4f;
+    
+    private final DepthSorter sorter = new DepthSorter();
+    private int[] keys;
+    private int[] order;
+    private long[] longKeys;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42L);
+        positions = new int[faceCount * 3];
+        for (int i = 0; i < faceCount; i++) {
+            positions[i * 3] = random.nextInt(128) - 64;
+            positions[i * 3 + 1] = 56 + random.nextInt(32);
+            positions[i * 3 + 2] = random.nextInt(128) - 64;
+        }
+        keys = new int[faceCount];
+        order = new int[faceCount];
+        longKeys = new long[faceCount];
+    }
+    
+    @Benchmark
+    public int radixSort() {
+        for (int i = 0; i < faceCount; i++) {
+            float dx = positions[i * 3] - cameraX;
+            float dy = positions[i * 3 + 1] - cameraY;
+            float dz = positions[i * 3 + 2] - cameraZ;
+            keys[i] = DepthSorter.farToNearKey(dx * dx + dy * dy + dz * dz);
+            order[i] = i;
+        }
+        sorter.sort(keys, order, faceCount);
+        return order[0];
+    }
+    
+    @Benchmark
+    public int comparisonSort() {
+        for (int i = 0; i < faceCount; i++) {
+            float dx = positions[i * 3] - cameraX;
+            float dy = positions[i * 3 + 1] - cameraY;
+            float dz = positions[i * 3 + 2] - cameraZ;
+            int distanceBits = Float.floatToIntBits(dx * dx + dy * dy + dz * dz);
+            longKeys[i] = ((long) (Integer.MAX_VALUE - distanceBits) << 32) | i;
+        }
+        Arrays.sort(longKeys, 0, faceCount);
+        return (int) longKeys[0];
+    }
+}
@@ -0,0 +1,35 @@
+package com.tsian.world;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 区块存储：同一种子的存档可以读回，其他种子生成的存档视为不存在，世界种子保存在存档目录中
+ */
+public class ChunkStorageTest {
+    
+    @Test
+    public void ignoresChunksFromAnotherSeed(@TempDir Path directory) throws IOException {
+        Chunk chunk = new Chunk(1, 2);
+        chunk.setBlock(17, 5, 35, Block.BlockType.STONE);
+        new ChunkStorage(directory.toString(), 42L).save(chunk);
+        
+        Chunk loaded = new ChunkStorage(directory.toString(), 42L).load(1, 2);
+        assertEquals(Block.BlockType.STONE, loaded.getBlock(17, 5, 35).getType(), "same seed");
+        
+        assertNull(new ChunkStorage(directory.toString(), 7L).load(1, 2), "other seed");
+    }
+    
+    @Test
+    public void savesWorldSeed(@TempDir Path directory) throws IOException {
+        assertNull(ChunkStorage.loadSeed(directory.toString()), "no seed saved");
+        
+        new ChunkStorage(directory.toString(), -1234567890123L).saveSeed();
+        assertEquals(-1234567890123L, ChunkStorage.loadSeed(directory.toString()));
+    }
+}
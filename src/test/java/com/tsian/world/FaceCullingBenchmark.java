@@ -0,0 +1,89 @@
+package com.tsian.world;
+
+import com.tsian.config.GameConfig;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 面剔除基准：逐方块查询相邻方块 vs 分段占用掩码
+ *
+ * 运行: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=FaceCulling
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FaceCullingBenchmark {
+    
+    private World world;
+    private Chunk chunk;
+    private final SectionFaceCuller culler = new SectionFaceCuller();
+    private final ChunkSection[] neighbors = new ChunkSection[6];
+    private final int[][] visibleRows = new int[6][ChunkSection.ROWS];
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        world = TestWorlds.island(new GameConfig().world.viewDistance);
+        chunk = world.getChunkManager().getChunk(1, 1); // 空岛中部的区块（含水池和树木）
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.shutdown();
+    }
+    
+    @Benchmark
+    public int perBlockLookup() {
+        int count = 0;
+        for (Block block : chunk.getBlocks().values()) {
+            if (block.getType() == Block.BlockType.AIR) continue;
+            for (int face = 0; face < 6; face++) {
+                if (PerBlockFaceVisibility.isFaceVisible(world, block, face)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    @Benchmark
+    public int occupancyMasks() {
+        ChunkManager chunkManager = world.getChunkManager();
+        int chunkX = chunk.getChunkX();
+        int chunkZ = chunk.getChunkZ();
+        int count = 0;
+        for (ChunkSection section : chunk.getSections()) {
+            int sectionY = section.getSectionY();
+            neighbors[0] = sectionOf(chunkManager.getChunk(chunkX, chunkZ + 1), sectionY);
+            neighbors[1] = sectionOf(chunkManager.getChunk(chunkX, chunkZ - 1), sectionY);
+            neighbors[2] = sectionOf(chunkManager.getChunk(chunkX - 1, chunkZ), sectionY);
+            neighbors[3] = sectionOf(chunkManager.getChunk(chunkX + 1, chunkZ), sectionY);
+            neighbors[4] = chunk.getSection(sectionY + 1);
+            neighbors[5] = chunk.getSection(sectionY - 1);
+            culler.cull(section, neighbors, visibleRows);
+            for (int[] rows : visibleRows) {
+                for (int bits : rows) {
+                    count += Integer.bitCount(bits);
+                }
+            }
+        }
+        return count;
+    }
+    
+    private static ChunkSection sectionOf(Chunk chunk, int sectionY) {
+        return chunk != null ? chunk.getSection(sectionY) : null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tsian.world;
+
+/**
+ * 逐方块面可见性查询 - 查询相邻方块判断面是否可见，作为分段掩码剔除（SectionFaceCuller）的参考实现
+ *
+ * 只用于测试和基准对比。
+ */
+final class PerBlockFaceVisibility {
+    
+    private PerBlockFaceVisibility() {
+    }
+    
+    /**
+     * 检查方块的某个面是否可见
+     */
+    static boolean isFaceVisible(World world, Block block, int face) {
+        int x = block.getX();
+        int y = block.getY();
+        int z = block.getZ();
+        
+        // 计算相邻方块的位置
+        int adjX = x, adjY = y, adjZ = z;
+        
+        switch (face) {
+            case 0: adjZ++; break; // 前面
+            case 1: adjZ--; break; // 后面
+            case 2: adjX--; break; // 左面
+            case 3: adjX++; break; // 右面
+            case 4: adjY++; break; // 上面
+            case 5: adjY--; break; // 下面
+        }
+        
+        // 获取相邻方块
+        Block adjacentBlock = world.getBlockAt(adjX, adjY, adjZ);
+        
+        // 如果没有相邻方块，面可见
+        if (adjacentBlock == null || adjacentBlock.getType() == Block.BlockType.AIR) {
+            return true;
+        }
+        
+        // 如果是相同类型的方块，面不可见（剔除）- 包括同种透明方块
+        if (block.getType() == adjacentBlock.getType()) {
+            return false;
+        }
+        
+        // 透明方块的特殊处理
+        boolean currentIsTransparent = (block.getType() == Block.BlockType.WATER || block.getType() == Block.BlockType.LEAVES);
+        boolean adjacentIsTransparent = (adjacentBlock.getType() == Block.BlockType.WATER || adjacentBlock.getType() == Block.BlockType.LEAVES);
+        
+        // 如果当前方块是透明的，且相邻方块是不透明的，当前面不可见（剔除）
+        if (currentIsTransparent && !adjacentIsTransparent) {
+            return false;
+        }
+        
+        // 如果当前方块是不透明的，且相邻方块是透明的，当前面可见
+        if (!currentIsTransparent && adjacentIsTransparent) {
+            return true;
+        }
+        
+        // 如果都是透明但不同类型，面可见
+        if (currentIsTransparent && adjacentIsTransparent) {
+            return true;
+        }
+        
+        // 默认：不透明方块之间的相邻面不可见
+        return false;
+    }
+}
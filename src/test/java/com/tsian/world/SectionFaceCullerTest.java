@@ -0,0 +1,67 @@
+package com.tsian.world;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 位掩码面剔除与逐方块查询的结果对比
+ */
+public class SectionFaceCullerTest {
+    
+    @Test
+    public void maskCullingMatchesPerBlockLookup() {
+        World world = TestWorlds.island();
+        try {
+            // 在区块和分段边界附近随机放置各种方块
+            Random random = new Random(7L);
+            Block.BlockType[] types = {
+                Block.BlockType.STONE, Block.BlockType.WATER, Block.BlockType.LEAVES, Block.BlockType.WOOD_PLANK
+            };
+            for (int i = 0; i < 2000; i++) {
+                int x = 10 + random.nextInt(44);
+                int y = random.nextInt(24);
+                int z = 10 + random.nextInt(44);
+                if (!world.addBlock(x, y, z, types[random.nextInt(types.length)])) {
+                    world.removeBlockAt(x, y, z);
+                }
+            }
+            world.recalculateVisibleFaces();
+            
+            Set<String> expected = new HashSet<>();
+            for (Block block : world.getBlocks()) {
+                if (block.getType() == Block.BlockType.AIR) continue;
+                for (int face = 0; face < 6; face++) {
+                    if (PerBlockFaceVisibility.isFaceVisible(world, block, face)) {
+                        expected.add(block.getX() + "," + block.getY() + "," + block.getZ() + "," + face);
+                    }
+                }
+            }
+            
+            Set<String> actual = new HashSet<>();
+            for (Chunk chunk : world.getChunks()) {
+                int originX = chunk.getChunkX() * Chunk.CHUNK_SIZE;
+                int originZ = chunk.getChunkZ() * Chunk.CHUNK_SIZE;
+                for (ChunkSection section : chunk.getSections()) {
+                    int originY = section.getSectionY() * ChunkSection.SIZE;
+                    PackedFaceList faces = section.getVisibleFaces();
+                    for (int i = 0; i < faces.size(); i++) {
+                        int packed = faces.get(i);
+                        int x = originX + PackedFaceList.localX(packed);
+                        int y = originY + PackedFaceList.localY(packed);
+                        int z = originZ + PackedFaceList.localZ(packed);
+                        assertEquals(world.getBlockAt(x, y, z).getType().getId(), PackedFaceList.blockId(packed));
+                        actual.add(x + "," + y + "," + z + "," + PackedFaceList.face(packed));
+                    }
+                }
+            }
+            
+            assertEquals(expected, actual);
+        } finally {
+            world.shutdown();
+        }
+    }
+}
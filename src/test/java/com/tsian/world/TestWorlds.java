@@ -0,0 +1,36 @@
+package com.tsian.world;
+
+import com.tsian.config.GameConfig;
+
+/**
+ * 测试和基准共用的世界
+ */
+public final class TestWorlds {
+    
+    private TestWorlds() {
+    }
+    
+    /**
+     * 种子42的4x4区块空岛（区块0-3），视距4，不读写存档，在空岛中心初始化完成；用完后需要调用shutdown
+     */
+    public static World island() {
+        return island(4);
+    }
+    
+    /**
+     * 指定视距的同一空岛（基准测试使用游戏的默认视距）
+     */
+    public static World island(int viewDistance) {
+        GameConfig config = new GameConfig();
+        config.world.seed = 42L;
+        config.world.saveDirectory = null;
+        config.world.islandMinChunk = 0;
+        config.world.islandMaxChunk = 3;
+        config.world.viewDistance = viewDistance;
+        config.world.chunkWorkerThreads = 1;
+        
+        World world = new World(config);
+        world.initializeWorld(32.0f, 32.0f);
+        return world;
+    }
+}